@@ -0,0 +1,44 @@
+package com.purelife.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 快取設定
+ * 商品目錄放在本機記憶體（Caffeine），有筆數上限與存活時間，後台寫入時清除
+ * 結帳扣庫存、增加銷量不清除快取（每筆訂單都清就等於沒有快取），存活時間設短，商品明細的庫存與熱銷排行最多落後這麼久
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // 商品目錄快取名稱
+    public static final String CATALOG_CACHE = "catalog";
+
+    @Value("${catalog.cache.max-size:500}")
+    private long maxSize;
+
+    @Value("${catalog.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CATALOG_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds)));
+        cacheManager.setAllowNullValues(false);
+
+        // 交易提交後才真正清除，避免交易中途被讀回舊資料又放進快取
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
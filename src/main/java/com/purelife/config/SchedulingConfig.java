@@ -0,0 +1,12 @@
+package com.purelife.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 排程設定（庫存回寫等背景工作）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
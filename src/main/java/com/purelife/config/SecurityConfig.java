@@ -5,15 +5,20 @@ import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -28,7 +33,30 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    /**
+     * 靜態資源（商品圖片）：不經過任何 Security Filter，不建立 SecurityContext
+     */
     @Bean
+    @Order(0)
+    public SecurityFilterChain staticResourceFilterChain() {
+        return new DefaultSecurityFilterChain(new OrRequestMatcher(
+                PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.GET, "/uploads/**"),
+                PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.GET, "/images/**")));
+    }
+
+    /**
+     * JwtAuthenticationFilter 是 @Component，Spring Boot 預設會再註冊成一般 Servlet Filter，
+     * 變成每個請求（包含圖片）在 Security 之外又跑一次；這裡關掉，只留在 Security Filter Chain 裡
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    @Order(1)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             // 啟用 CORS
@@ -67,7 +95,7 @@ public class SecurityConfig {
                 // 其他訂閱操作需登入
                 .requestMatchers("/api/subscriptions/**").authenticated() 
                 // 管理員需要 ADMIN 角色
-                .requestMatchers("/api/admin/**").authenticated()
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 // 其他請求都需要登入
                 .anyRequest().authenticated() 
             )
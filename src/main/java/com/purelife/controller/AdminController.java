@@ -1,8 +1,13 @@
 package com.purelife.controller;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -12,18 +17,25 @@ import com.purelife.controller.dto.request.AdminLoginRequest;
 import com.purelife.controller.dto.request.ProductRequest;
 import com.purelife.controller.dto.response.AdminLoginResponse;
 import com.purelife.controller.dto.response.ApiResponse;
+import com.purelife.controller.dto.response.CursorPage;
 import com.purelife.controller.dto.response.MemberResponse;
 import com.purelife.controller.dto.response.OrderResponse;
 import com.purelife.controller.dto.response.ProductResponse;
 import com.purelife.controller.dto.response.SubscriptionResponse;
 import com.purelife.entity.Product;
 import com.purelife.service.AdminService;
+import com.purelife.service.ExportService;
+import com.purelife.service.ExportService.ExportFormat;
 import com.purelife.service.FileUploadService;  
+import com.purelife.service.LoginAttemptLimiter;
 import com.purelife.service.ProductService;    
+import com.purelife.service.SubscriptionRenewalService;
+import com.purelife.service.SubscriptionRenewalService.RenewalResult;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -35,6 +47,9 @@ public class AdminController {
     private final AdminService adminService;
     private final FileUploadService fileUploadService;  
     private final ProductService productService;  
+    private final ExportService exportService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final SubscriptionRenewalService renewalService;
     private final ObjectMapper objectMapper;      
 
     // ===== 管理員登入 =====
@@ -52,6 +67,15 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(members));
     }
 
+    // 會員分頁：GET /api/admin/members?after=100&limit=50
+    @GetMapping(value = "/members", params = "limit")
+    public ResponseEntity<ApiResponse<CursorPage<MemberResponse>>> getMembersPage(
+            @RequestParam(required = false) Integer after,
+            @RequestParam Integer limit) {
+        CursorPage<MemberResponse> page = adminService.getMembersPage(after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
     // ===== 訂單管理 =====
     @GetMapping("/orders")
     public ResponseEntity<ApiResponse<List<OrderResponse>>> getAllOrders() {
@@ -59,6 +83,15 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    // 訂單分頁：GET /api/admin/orders?after={nextCursor}&limit=50
+    @GetMapping(value = "/orders", params = "limit")
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> getOrdersPage(
+            @RequestParam(required = false) String after,
+            @RequestParam Integer limit) {
+        CursorPage<OrderResponse> page = adminService.getOrdersPage(after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
     @PutMapping("/orders/{orderId}/status")
     public ResponseEntity<ApiResponse<Void>> updateOrderStatus(
             @PathVariable Integer orderId,
@@ -82,12 +115,97 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(subscriptions));
     }
 
+    // 訂閱分頁：GET /api/admin/subscriptions?after=100&limit=50
+    @GetMapping(value = "/subscriptions", params = "limit")
+    public ResponseEntity<ApiResponse<CursorPage<SubscriptionResponse>>> getSubscriptionsPage(
+            @RequestParam(required = false) Integer after,
+            @RequestParam Integer limit) {
+        CursorPage<SubscriptionResponse> page = adminService.getSubscriptionsPage(after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    // 即將出貨：GET /api/admin/subscriptions/upcoming?from=2025-01-31&days=7（每天的訂閱數）
+    @GetMapping("/subscriptions/upcoming")
+    public ResponseEntity<ApiResponse<NavigableMap<LocalDate, Integer>>> getUpcomingShipments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "7") Integer days) {
+        NavigableMap<LocalDate, Integer> counts = adminService.getUpcomingShipments(
+                from != null ? from : LocalDate.now(), Math.min(days, 90));
+        return ResponseEntity.ok(ApiResponse.success(counts));
+    }
+
+    // 某天要出貨的訂閱：GET /api/admin/subscriptions/upcoming/2025-01-31
+    @GetMapping("/subscriptions/upcoming/{date}")
+    public ResponseEntity<ApiResponse<List<SubscriptionResponse>>> getShipmentsOn(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        List<SubscriptionResponse> subscriptions = adminService.getShipmentsOn(date);
+        return ResponseEntity.ok(ApiResponse.success(subscriptions));
+    }
+
+    // 手動執行定期購續訂：POST /api/admin/subscriptions/renewals/run?date=2025-01-31（不給日期就是今天）
+    @PostMapping("/subscriptions/renewals/run")
+    public ResponseEntity<ApiResponse<RenewalResult>> runRenewals(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        RenewalResult result = renewalService.runRenewals(date != null ? date : renewalService.today());
+        return ResponseEntity.ok(ApiResponse.success("續訂完成", result));
+    }
+
+    // ===== 資料匯出（串流輸出，format = csv 或 ndjson）=====
+    @GetMapping("/export/orders")
+    public void exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        prepareExportResponse(response, "orders", exportFormat);
+        exportService.exportOrders(exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping("/export/members")
+    public void exportMembers(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        prepareExportResponse(response, "members", exportFormat);
+        exportService.exportMembers(exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping("/export/subscriptions")
+    public void exportSubscriptions(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        prepareExportResponse(response, "subscriptions", exportFormat);
+        exportService.exportSubscriptions(exportFormat, response.getOutputStream());
+    }
+
+    private void prepareExportResponse(HttpServletResponse response, String name, ExportFormat format) {
+        String fileName = name + "-" + LocalDate.now() + "." + format.getExtension();
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+    }
+
+    // ===== 系統監控 =====
+    // 會員登入統計：嘗試、被擋、失敗、成功次數與目前追蹤的 Email / IP 數
+    @GetMapping("/metrics/login")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getLoginMetrics() {
+        return ResponseEntity.ok(ApiResponse.success(loginAttemptLimiter.getMetrics()));
+    }
+
     // ===== 商品管理 =====
     @GetMapping("/products")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getProducts() {
         List<ProductResponse> products = productService.getAllProductsForAdmin();
         return ResponseEntity.ok(ApiResponse.success(products));
     }
+
+    // 商品分頁：GET /api/admin/products?after=100&limit=50
+    @GetMapping(value = "/products", params = "limit")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsPage(
+            @RequestParam(required = false) Integer after,
+            @RequestParam Integer limit) {
+        CursorPage<ProductResponse> page = productService.getProductsPageForAdmin(after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
     
     /**
      * 上傳商品圖片
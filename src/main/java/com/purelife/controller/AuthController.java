@@ -6,8 +6,12 @@ import com.purelife.controller.dto.response.ApiResponse;
 import com.purelife.controller.dto.response.LoginResponse;
 import com.purelife.entity.Member;
 import com.purelife.service.AuthService;
+import com.purelife.util.GuestCartCookieUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
 //告訴Spring：這是一個REST API Controller
@@ -27,9 +31,23 @@ public class AuthController {
         return ApiResponse.success("註冊成功", member);
     }
     
+    // 註冊頁即時檢查：GET /api/auth/check-email?email=xxx，data 為 true 表示已被使用
+    @GetMapping("/check-email")
+    public ApiResponse<Boolean> checkEmail(@RequestParam String email) {
+        return ApiResponse.success(authService.isEmailTaken(email));
+    }
+
     @PostMapping("/login")
-    public ApiResponse<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        LoginResponse loginResponse = authService.login(request);
+    public ApiResponse<LoginResponse> login(
+            @Valid @RequestBody LoginRequest request,
+            @CookieValue(name = GuestCartCookieUtil.COOKIE_NAME, required = false) String guestCartId,
+            HttpServletRequest httpRequest,
+            HttpServletResponse response) {
+        LoginResponse loginResponse = authService.login(request, guestCartId, httpRequest.getRemoteAddr());
+        // 訪客購物車已合併，清掉 cookie
+        if (guestCartId != null) {
+            response.addHeader(HttpHeaders.SET_COOKIE, GuestCartCookieUtil.clear().toString());
+        }
         return ApiResponse.success("登入成功", loginResponse);
     }
 }
\ No newline at end of file
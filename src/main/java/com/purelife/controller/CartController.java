@@ -3,9 +3,11 @@ package com.purelife.controller;
 import java.math.BigDecimal;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +23,8 @@ import com.purelife.controller.dto.request.AddToCartRequest;
 import com.purelife.controller.dto.response.ApiResponse;
 import com.purelife.controller.dto.response.CartItemResponse;
 import com.purelife.service.CartService;
+import com.purelife.service.GuestCartStore;
+import com.purelife.util.GuestCartCookieUtil;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -32,25 +36,29 @@ import lombok.RequiredArgsConstructor;
 public class CartController {
 
     private final CartService cartService;
+    private final GuestCartStore guestCartStore;
 
     /**
-     * 從 SecurityContext 取得當前登入的 memberId
+     * 從 SecurityContext 取得當前登入的 memberId，未登入（訪客）回傳 null
      */
     private Integer getCurrentMemberId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || authentication.getPrincipal() == null) {
-            throw new RuntimeException("請先登入");
+        if (authentication != null && authentication.getPrincipal() instanceof Integer memberId) {
+            return memberId;
         }
-        return (Integer) authentication.getPrincipal();
+        return null;
     }
 
     /**
      * 取得購物車列表
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CartItemResponse>>> getCart() {
+    public ResponseEntity<ApiResponse<List<CartItemResponse>>> getCart(
+            @CookieValue(name = GuestCartCookieUtil.COOKIE_NAME, required = false) String guestCartId) {
         Integer memberId = getCurrentMemberId();
-        List<CartItemResponse> items = cartService.getCartItems(memberId);
+        List<CartItemResponse> items = memberId != null
+                ? cartService.getCartItems(memberId)
+                : cartService.getGuestCartItems(guestCartId);
         return ResponseEntity.ok(ApiResponse.success(items));
     }
 
@@ -58,21 +66,34 @@ public class CartController {
      * 取得購物車總金額
      */
     @GetMapping("/total")
-    public ResponseEntity<ApiResponse<BigDecimal>> getCartTotal() {
+    public ResponseEntity<ApiResponse<BigDecimal>> getCartTotal(
+            @CookieValue(name = GuestCartCookieUtil.COOKIE_NAME, required = false) String guestCartId) {
         Integer memberId = getCurrentMemberId();
-        BigDecimal total = cartService.getCartTotal(memberId);
+        BigDecimal total = memberId != null
+                ? cartService.getCartTotal(memberId)
+                : cartService.getGuestCartTotal(guestCartId);
         return ResponseEntity.ok(ApiResponse.success(total));
     }
 
     /**
-     * 新增商品到購物車
+     * 新增商品到購物車（訪客第一次加入時發給購物車 cookie）
      */
     @PostMapping
     public ResponseEntity<ApiResponse<CartItemResponse>> addToCart(
-            @Valid @RequestBody AddToCartRequest request) {
+            @Valid @RequestBody AddToCartRequest request,
+            @CookieValue(name = GuestCartCookieUtil.COOKIE_NAME, required = false) String guestCartId) {
         Integer memberId = getCurrentMemberId();
-        CartItemResponse item = cartService.addToCart(memberId, request);
-        return ResponseEntity.ok(ApiResponse.success("已加入購物車", item));
+        if (memberId != null) {
+            CartItemResponse item = cartService.addToCart(memberId, request);
+            return ResponseEntity.ok(ApiResponse.success("已加入購物車", item));
+        }
+
+        String cartId = GuestCartCookieUtil.isValid(guestCartId) ? guestCartId : GuestCartCookieUtil.newId();
+        CartItemResponse item = cartService.addToGuestCart(cartId, request);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE,
+                        GuestCartCookieUtil.create(cartId, guestCartStore.getTtl()).toString())
+                .body(ApiResponse.success("已加入購物車", item));
     }
 
     /**
@@ -81,7 +102,8 @@ public class CartController {
     @PutMapping("/{cartId}")
     public ResponseEntity<ApiResponse<CartItemResponse>> updateQuantity(
             @PathVariable Integer cartId,
-            @RequestParam Integer quantity) {
+            @RequestParam Integer quantity,
+            @CookieValue(name = GuestCartCookieUtil.COOKIE_NAME, required = false) String guestCartId) {
 
         if (quantity < 1) {
             return ResponseEntity.badRequest()
@@ -89,7 +111,9 @@ public class CartController {
         }
 
         Integer memberId = getCurrentMemberId();
-        CartItemResponse item = cartService.updateQuantity(memberId, cartId, quantity);
+        CartItemResponse item = memberId != null
+                ? cartService.updateQuantity(memberId, cartId, quantity)
+                : cartService.updateGuestQuantity(guestCartId, cartId, quantity);
         return ResponseEntity.ok(ApiResponse.success("數量已更新", item));
     }
 
@@ -98,9 +122,14 @@ public class CartController {
      */
     @DeleteMapping("/{cartId}")
     public ResponseEntity<ApiResponse<Void>> removeFromCart(
-            @PathVariable Integer cartId) {
+            @PathVariable Integer cartId,
+            @CookieValue(name = GuestCartCookieUtil.COOKIE_NAME, required = false) String guestCartId) {
         Integer memberId = getCurrentMemberId();
-        cartService.removeFromCart(memberId, cartId);
+        if (memberId != null) {
+            cartService.removeFromCart(memberId, cartId);
+        } else {
+            cartService.removeFromGuestCart(guestCartId, cartId);
+        }
         return ResponseEntity.ok(ApiResponse.success("已從購物車移除", null));
     }
 
@@ -108,9 +137,14 @@ public class CartController {
      * 清空購物車
      */
     @DeleteMapping
-    public ResponseEntity<ApiResponse<Void>> clearCart() {
+    public ResponseEntity<ApiResponse<Void>> clearCart(
+            @CookieValue(name = GuestCartCookieUtil.COOKIE_NAME, required = false) String guestCartId) {
         Integer memberId = getCurrentMemberId();
-        cartService.clearCart(memberId);
+        if (memberId != null) {
+            cartService.clearCart(memberId);
+        } else {
+            cartService.clearGuestCart(guestCartId);
+        }
         return ResponseEntity.ok(ApiResponse.success("購物車已清空", null));
     }
 }
\ No newline at end of file
@@ -10,10 +10,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.purelife.controller.dto.request.CreateOrderRequest;
 import com.purelife.controller.dto.response.ApiResponse;
+import com.purelife.controller.dto.response.CursorPage;
 import com.purelife.controller.dto.response.OrderResponse;
 import com.purelife.service.OrderService;
 
@@ -61,6 +63,18 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    /**
+     * 取得會員的訂單分頁（有帶 limit 才走分頁，after 為上一頁的 nextCursor）
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> getOrdersPage(
+            @RequestParam(required = false) String after,
+            @RequestParam Integer limit) {
+        Integer memberId = getCurrentMemberId();
+        CursorPage<OrderResponse> page = orderService.getOrdersPage(memberId, after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
     /**
      * 取得單筆訂單詳情
      */
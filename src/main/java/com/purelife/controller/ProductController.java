@@ -1,11 +1,19 @@
 package com.purelife.controller;
 
 import com.purelife.controller.dto.response.ApiResponse;
+import com.purelife.controller.dto.response.CategoryResponse;
+import com.purelife.controller.dto.response.CursorPage;
 import com.purelife.controller.dto.response.ProductResponse;
 import com.purelife.service.ProductService;
+import com.purelife.service.ProductService.CatalogSnapshot;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,12 +29,37 @@ public class ProductController {
     // 取得所有商品（可選分類篩選）(required = false)->category 不是必填
     // GET /api/products
     // GET /api/products?category=維他命
+    // 回傳預先序列化好的快照，帶 ETag；前端帶 If-None-Match 且內容沒變就回 304
     @GetMapping
-    public ApiResponse<List<ProductResponse>> getAllProducts(
-            @RequestParam(required = false) String category) {
-        
-        List<ProductResponse> products = productService.getAllProducts(category);
-        return ApiResponse.success(products);
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestParam(required = false) String category,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        CatalogSnapshot snapshot = productService.getCatalogSnapshot(category);
+        if (matchesETag(ifNoneMatch, snapshot.eTag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.eTag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.eTag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.body());
+    }
+
+    // 商品分頁（有帶 limit 才走分頁）
+    // GET /api/products?limit=20
+    // GET /api/products?category=維他命&after=120&limit=20
+    @GetMapping(params = "limit")
+    public ApiResponse<CursorPage<ProductResponse>> getProductsPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer after,
+            @RequestParam Integer limit) {
+
+        CursorPage<ProductResponse> page = productService.getProductsPage(category, after, limit);
+        return ApiResponse.success(page);
     }
 
     // 取得單一商品
@@ -45,6 +78,14 @@ public class ProductController {
         return ApiResponse.success(categories);
     }
 
+    // 取得所有分類及各分類上架商品數（分類選單用）
+    // GET /api/products/categories/counts
+    @GetMapping("/categories/counts")
+    public ApiResponse<List<CategoryResponse>> getCategoryCounts() {
+        List<CategoryResponse> categories = productService.getCategoryCounts();
+        return ApiResponse.success(categories);
+    }
+
     // 取得新品
     // GET /api/products/new
     @GetMapping("/new")
@@ -60,4 +101,21 @@ public class ProductController {
         List<ProductResponse> products = productService.getHotProducts();
         return ApiResponse.success(products);
     }
+
+    // If-None-Match 可能是 "*"、多個 ETag 或帶 W/ 前綴（經過 proxy 壓縮時）
+    private boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,11 @@
+package com.purelife.controller.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CategoryResponse {
+    private String category;
+    private Integer productCount;   // 上架商品數
+}
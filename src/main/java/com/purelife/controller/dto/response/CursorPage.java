@@ -0,0 +1,18 @@
+package com.purelife.controller.dto.response;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 游標分頁回應
+ * 下一頁把 nextCursor 當作 after 參數帶回來即可；hasMore = false 代表已經是最後一頁
+ */
+@Data
+@Builder
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -13,6 +13,7 @@ public class OrderResponse {
 
     private Integer orderId;
     private String orderNumber;
+    private String memberName;          // 會員姓名（後台列表用）
     private String orderStatus;
     private String paymentStatus;
     private BigDecimal totalAmount;
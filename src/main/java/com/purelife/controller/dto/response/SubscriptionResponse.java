@@ -13,6 +13,7 @@ public class SubscriptionResponse {
 
     private Integer subscriptionId;
     private Integer planId;
+    private String memberName;          // 會員姓名（後台列表用）
     private String subscriptionStatus;
     private Integer quantity;
     private LocalDate nextDeliveryDate;
@@ -0,0 +1,31 @@
+package com.purelife.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.Data;
+
+/**
+ * 定期購續訂進度（每個執行日一筆），中斷後重跑從這裡接續
+ */
+@Data
+@Table("renewal_checkpoints")
+public class RenewalCheckpoint {
+
+    @Id
+    @Column("run_date")
+    private LocalDate runDate;
+
+    @Column("last_subscription_id")
+    private Integer lastSubscriptionId;  // 這個 ID（含）之前都已處理完
+
+    @Column("completed")
+    private Boolean completed;  // 整輪跑完且沒有失敗的段
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,14 @@
+package com.purelife.event;
+
+/**
+ * 商品目錄異動事件
+ * 後台新增、修改、上下架、刪除商品時發出，交易提交後由各個目錄快取接手重建
+ * 帶上異動前後的分類與狀態，讓分類索引可以增量更新（新增時 previous 為 null，實際刪除時 category/status 為 null）
+ */
+public record CatalogChangedEvent(
+        Integer productId,
+        String previousCategory,
+        String previousStatus,
+        String category,
+        String status) {
+}
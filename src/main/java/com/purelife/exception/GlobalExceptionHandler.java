@@ -25,6 +25,27 @@ public class GlobalExceptionHandler {
         return ApiResponse.error(errorMessage);
     }
 
+    // 處理庫存不足（data 帶扣庫存失敗的商品 ID）
+    @ExceptionHandler(InsufficientStockException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiResponse<Object> handleInsufficientStockException(InsufficientStockException ex) {
+        return new ApiResponse<>(false, ex.getMessage(), ex.getProductIds());
+    }
+
+    // 處理請求次數過多（例如：登入失敗太多次）
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ApiResponse<Object> handleTooManyRequestsException(TooManyRequestsException ex) {
+        return ApiResponse.error(ex.getMessage());
+    }
+
+    // 處理系統忙碌（例如：登入尖峰時密碼驗證排隊已滿）
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiResponse<Object> handleServiceBusyException(ServiceBusyException ex) {
+        return ApiResponse.error(ex.getMessage());
+    }
+
     // 處理業務異常（例如：帳號已存在）
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -0,0 +1,20 @@
+package com.purelife.exception;
+
+import java.util.List;
+
+/**
+ * 結帳時庫存不足，帶上扣庫存失敗的商品 ID 讓前端標示
+ */
+public class InsufficientStockException extends BusinessException {
+
+    private final List<Integer> productIds;
+
+    public InsufficientStockException(String message, List<Integer> productIds) {
+        super(message);
+        this.productIds = productIds;
+    }
+
+    public List<Integer> getProductIds() {
+        return productIds;
+    }
+}
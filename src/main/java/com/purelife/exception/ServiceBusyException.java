@@ -0,0 +1,11 @@
+package com.purelife.exception;
+
+/**
+ * 系統忙碌（例如登入尖峰時密碼驗證排隊已滿），請用戶端稍後重試
+ */
+public class ServiceBusyException extends BusinessException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.purelife.exception;
+
+/**
+ * 請求次數過多（例如登入失敗太多次），暫時拒絕
+ */
+public class TooManyRequestsException extends BusinessException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
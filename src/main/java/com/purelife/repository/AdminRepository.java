@@ -2,7 +2,10 @@ package com.purelife.repository;
 
 import java.util.Optional;
 
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.purelife.entity.Admin;
@@ -13,4 +16,9 @@ public interface AdminRepository extends CrudRepository<Admin, Integer> {
     Optional<Admin> findByAccount(String account);
     
     boolean existsByAccount(String account);
+
+    // 只更新密碼雜湊（登入時升級雜湊格式用，不覆蓋其他欄位）
+    @Modifying
+    @Query("UPDATE admins SET password_hash = :passwordHash WHERE admin_id = :adminId")
+    void updatePasswordHash(@Param("adminId") Integer adminId, @Param("passwordHash") String passwordHash);
 }
\ No newline at end of file
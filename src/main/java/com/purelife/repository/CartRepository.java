@@ -1,20 +1,38 @@
 package com.purelife.repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.purelife.controller.dto.response.CartItemResponse;
 import com.purelife.entity.Cart;
+import com.purelife.repository.mapper.CartItemRowMapper;
 
 @Repository
-public interface CartRepository extends CrudRepository<Cart, Integer> {
+public interface CartRepository extends CrudRepository<Cart, Integer>, CartRepositoryCustom {
     // 根據會員ID查詢購物車
     List<Cart> findByMemberId(Integer memberId);
 
+    // 購物車列表（JOIN 商品，一次查完）
+    @Query(value = "SELECT c.cart_id, c.product_id, c.quantity, c.added_time, " +
+                   "p.product_name, p.category, p.price, p.promotion_price, p.product_status, p.stock_quantity, p.image_url " +
+                   "FROM carts c JOIN products p ON p.product_id = c.product_id " +
+                   "WHERE c.member_id = :memberId ORDER BY c.cart_id",
+           rowMapperClass = CartItemRowMapper.class)
+    List<CartItemResponse> findItemsByMemberId(@Param("memberId") Integer memberId);
+
+    // 購物車總金額（有促銷價就用促銷價）
+    @Query("SELECT COALESCE(SUM(COALESCE(p.promotion_price, p.price) * c.quantity), 0) " +
+           "FROM carts c JOIN products p ON p.product_id = c.product_id " +
+           "WHERE c.member_id = :memberId")
+    BigDecimal sumTotalByMemberId(@Param("memberId") Integer memberId);
+
     // 檢查會員是否已有該商品在購物車
     Optional<Cart> findByMemberIdAndProductId(Integer memberId, Integer productId);
 
@@ -0,0 +1,26 @@
+package com.purelife.repository;
+
+import java.util.List;
+
+import com.purelife.entity.Cart;
+
+/**
+ * 購物車的批次寫入（訪客購物車登入合併用）
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * 條件式數量更新：資料庫裡還是 expectedQuantity 才改成 quantity
+     */
+    record QuantityChange(Integer cartId, Integer expectedQuantity, Integer quantity) {
+    }
+
+    // 批次新增購物車項目
+    void batchInsert(List<Cart> carts);
+
+    // 批次更新購物車數量（依 cart_id）
+    void batchUpdateQuantities(List<Cart> carts);
+
+    // 批次條件式更新數量，回傳實際有更新的 cart_id（數量已被其他寫入改過的會略過）
+    List<Integer> batchCompareAndSetQuantities(List<QuantityChange> changes);
+}
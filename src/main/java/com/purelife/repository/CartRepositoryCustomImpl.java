@@ -0,0 +1,73 @@
+package com.purelife.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.purelife.entity.Cart;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO carts (member_id, product_id, quantity, added_time) VALUES (?, ?, ?, ?)";
+
+    private static final String UPDATE_QUANTITY_SQL =
+            "UPDATE carts SET quantity = ? WHERE cart_id = ?";
+
+    private static final String COMPARE_AND_SET_QUANTITY_SQL =
+            "UPDATE carts SET quantity = ? WHERE cart_id = ? AND quantity = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<Cart> carts) {
+        if (carts.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = carts.stream()
+                .map(cart -> new Object[] {
+                        cart.getMemberId(),
+                        cart.getProductId(),
+                        cart.getQuantity(),
+                        cart.getAddedTime()
+                })
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+
+    @Override
+    public void batchUpdateQuantities(List<Cart> carts) {
+        if (carts.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = carts.stream()
+                .map(cart -> new Object[] { cart.getQuantity(), cart.getCartId() })
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(UPDATE_QUANTITY_SQL, batchArgs);
+    }
+
+    @Override
+    public List<Integer> batchCompareAndSetQuantities(List<QuantityChange> changes) {
+        List<Integer> updatedIds = new ArrayList<>();
+        if (changes.isEmpty()) {
+            return updatedIds;
+        }
+
+        List<Object[]> batchArgs = changes.stream()
+                .map(c -> new Object[] { c.quantity(), c.cartId(), c.expectedQuantity() })
+                .collect(Collectors.toList());
+        int[] updateCounts = jdbcTemplate.batchUpdate(COMPARE_AND_SET_QUANTITY_SQL, batchArgs);
+
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] > 0) {
+                updatedIds.add(changes.get(i).cartId());
+            }
+        }
+        return updatedIds;
+    }
+}
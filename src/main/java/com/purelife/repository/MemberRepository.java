@@ -1,9 +1,13 @@
 package com.purelife.repository;
 
 import com.purelife.entity.Member;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,5 +24,18 @@ public interface MemberRepository extends CrudRepository<Member, Integer> {
     
     // 檢查 Email 是否存在
     boolean existsByEmail(String email);
+
+    // 所有會員 Email（建立 Email 布隆過濾器用）
+    @Query("SELECT email FROM members WHERE email IS NOT NULL")
+    List<String> findAllEmails();
+
+    // 只更新密碼雜湊（登入時升級雜湊格式用，不覆蓋其他欄位）
+    @Modifying
+    @Query("UPDATE members SET password_hash = :passwordHash WHERE member_id = :memberId")
+    void updatePasswordHash(@Param("memberId") Integer memberId, @Param("passwordHash") String passwordHash);
+
+    // 會員分頁（依 member_id 游標）
+    @Query("SELECT * FROM members WHERE member_id > :afterId ORDER BY member_id LIMIT :limit")
+    List<Member> findPage(@Param("afterId") Integer afterId, @Param("limit") int limit);
 }
 
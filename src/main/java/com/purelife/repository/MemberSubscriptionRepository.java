@@ -1,5 +1,7 @@
 package com.purelife.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,10 +10,16 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.purelife.controller.dto.response.SubscriptionResponse;
 import com.purelife.entity.MemberSubscription;
+import com.purelife.repository.mapper.AdminSubscriptionRowMapper;
+import com.purelife.repository.mapper.DeliverySlotRowMapper;
+import com.purelife.repository.mapper.RenewalCandidateRowMapper;
+import com.purelife.repository.projection.DeliverySlot;
+import com.purelife.repository.projection.RenewalCandidate;
 
 @Repository
-public interface MemberSubscriptionRepository extends CrudRepository<MemberSubscription, Integer> {
+public interface MemberSubscriptionRepository extends CrudRepository<MemberSubscription, Integer>, MemberSubscriptionRepositoryCustom {
 
     // 取得會員的所有訂閱
     List<MemberSubscription> findByMemberId(Integer memberId);
@@ -20,6 +28,10 @@ public interface MemberSubscriptionRepository extends CrudRepository<MemberSubsc
     @Query("SELECT * FROM member_subscriptions WHERE member_id = :memberId AND subscription_status IN ('active', 'paused') ORDER BY created_at DESC")
     List<MemberSubscription> findActiveByMemberId(@Param("memberId") Integer memberId);
 
+    // 還有會員訂閱中（active 或 paused）的方案 ID（後台刪除方案前檢查）
+    @Query("SELECT DISTINCT plan_id FROM member_subscriptions WHERE plan_id IN (:planIds) AND subscription_status IN ('active', 'paused')")
+    List<Integer> findSubscribedPlanIds(@Param("planIds") Collection<Integer> planIds);
+
     // 檢查會員是否已訂閱某方案
     @Query("SELECT * FROM member_subscriptions WHERE member_id = :memberId AND plan_id = :planId AND subscription_status IN ('active', 'paused')")
     Optional<MemberSubscription> findByMemberIdAndPlanId(@Param("memberId") Integer memberId, @Param("planId") Integer planId);
@@ -27,4 +39,71 @@ public interface MemberSubscriptionRepository extends CrudRepository<MemberSubsc
     // 根據訂閱ID和會員ID查詢（確保只能操作自己的訂閱）
     @Query("SELECT * FROM member_subscriptions WHERE subscription_id = :subscriptionId AND member_id = :memberId")
     Optional<MemberSubscription> findBySubscriptionIdAndMemberId(@Param("subscriptionId") Integer subscriptionId, @Param("memberId") Integer memberId);
+
+    // 到期要續訂的訂閱（依 subscription_id 游標分段，JOIN 方案與商品取得計價資料）
+    @Query(value = "SELECT s.subscription_id, s.member_id, s.quantity, s.recipient_name, s.recipient_phone, " +
+                   "s.recipient_address, s.payment_method, s.next_delivery_date, " +
+                   "p.cycle_days, p.discount_rate, pr.product_id, pr.price, pr.promotion_price, pr.product_status " +
+                   "FROM member_subscriptions s " +
+                   "JOIN subscription_plans p ON p.plan_id = s.plan_id " +
+                   "JOIN products pr ON pr.product_id = p.product_id " +
+                   "WHERE s.subscription_status = 'active' AND s.next_delivery_date <= :runDate " +
+                   "AND s.subscription_id > :afterId ORDER BY s.subscription_id LIMIT :limit",
+           rowMapperClass = RenewalCandidateRowMapper.class)
+    List<RenewalCandidate> findDueForRenewal(@Param("runDate") LocalDate runDate,
+                                             @Param("afterId") Integer afterId,
+                                             @Param("limit") int limit);
+
+    // 指定訂閱中到期要續訂的（配送行事曆找出 ID 後取計價資料，狀態與日期仍以資料庫為準）
+    @Query(value = "SELECT s.subscription_id, s.member_id, s.quantity, s.recipient_name, s.recipient_phone, " +
+                   "s.recipient_address, s.payment_method, s.next_delivery_date, " +
+                   "p.cycle_days, p.discount_rate, pr.product_id, pr.price, pr.promotion_price, pr.product_status " +
+                   "FROM member_subscriptions s " +
+                   "JOIN subscription_plans p ON p.plan_id = s.plan_id " +
+                   "JOIN products pr ON pr.product_id = p.product_id " +
+                   "WHERE s.subscription_id IN (:subscriptionIds) " +
+                   "AND s.subscription_status = 'active' AND s.next_delivery_date <= :runDate " +
+                   "ORDER BY s.subscription_id",
+           rowMapperClass = RenewalCandidateRowMapper.class)
+    List<RenewalCandidate> findDueForRenewalByIds(@Param("subscriptionIds") Collection<Integer> subscriptionIds,
+                                                  @Param("runDate") LocalDate runDate);
+
+    // 所有 active 訂閱的下次配送日（建立配送行事曆用）
+    @Query(value = "SELECT subscription_id, next_delivery_date FROM member_subscriptions " +
+                   "WHERE subscription_status = 'active' AND next_delivery_date IS NOT NULL",
+           rowMapperClass = DeliverySlotRowMapper.class)
+    List<DeliverySlot> findActiveDeliverySlots();
+
+    // 指定訂閱的後台檢視（配送行事曆查某天要出貨的訂閱）
+    @Query(value = "SELECT s.*, m.name AS member_name, p.cycle_type, p.cycle_days, p.discount_rate, " +
+                   "pr.product_id, pr.product_name, pr.category " +
+                   "FROM member_subscriptions s " +
+                   "LEFT JOIN members m ON m.member_id = s.member_id " +
+                   "LEFT JOIN subscription_plans p ON p.plan_id = s.plan_id " +
+                   "LEFT JOIN products pr ON pr.product_id = p.product_id " +
+                   "WHERE s.subscription_id IN (:subscriptionIds) ORDER BY s.subscription_id",
+           rowMapperClass = AdminSubscriptionRowMapper.class)
+    List<SubscriptionResponse> findAdminViewsByIds(@Param("subscriptionIds") Collection<Integer> subscriptionIds);
+
+    // 後台訂閱列表：JOIN 會員、方案、商品，一次查完
+    @Query(value = "SELECT s.*, m.name AS member_name, p.cycle_type, p.cycle_days, p.discount_rate, " +
+                   "pr.product_id, pr.product_name, pr.category " +
+                   "FROM member_subscriptions s " +
+                   "LEFT JOIN members m ON m.member_id = s.member_id " +
+                   "LEFT JOIN subscription_plans p ON p.plan_id = s.plan_id " +
+                   "LEFT JOIN products pr ON pr.product_id = p.product_id " +
+                   "ORDER BY s.subscription_id",
+           rowMapperClass = AdminSubscriptionRowMapper.class)
+    List<SubscriptionResponse> findAllAdminViews();
+
+    // 後台訂閱分頁（含會員、方案、商品資訊，依 subscription_id 游標）
+    @Query(value = "SELECT s.*, m.name AS member_name, p.cycle_type, p.cycle_days, p.discount_rate, " +
+                   "pr.product_id, pr.product_name, pr.category " +
+                   "FROM member_subscriptions s " +
+                   "LEFT JOIN members m ON m.member_id = s.member_id " +
+                   "LEFT JOIN subscription_plans p ON p.plan_id = s.plan_id " +
+                   "LEFT JOIN products pr ON pr.product_id = p.product_id " +
+                   "WHERE s.subscription_id > :afterId ORDER BY s.subscription_id LIMIT :limit",
+           rowMapperClass = AdminSubscriptionRowMapper.class)
+    List<SubscriptionResponse> findAdminViewPage(@Param("afterId") Integer afterId, @Param("limit") int limit);
 }
\ No newline at end of file
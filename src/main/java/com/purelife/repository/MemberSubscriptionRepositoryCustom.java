@@ -0,0 +1,23 @@
+package com.purelife.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 訂閱配送日的批次更新（續訂排程用，Spring Data 無法表達 JDBC batch，自行實作）
+ */
+public interface MemberSubscriptionRepositoryCustom {
+
+    /**
+     * 配送日推進：從 currentDate 改成 nextDate
+     */
+    record DeliveryAdvance(Integer subscriptionId, LocalDate currentDate, LocalDate nextDate) {
+    }
+
+    /**
+     * 批次推進下次配送日：只有仍是 active 且配送日還是 currentDate 的才會更新
+     * （同一期被別的執行緒處理過、或會員剛好暫停 / 取消，都不會重複出貨）
+     * @return 實際推進成功的訂閱 ID
+     */
+    List<Integer> advanceDeliveryDates(List<DeliveryAdvance> advances);
+}
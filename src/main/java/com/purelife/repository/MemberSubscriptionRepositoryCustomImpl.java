@@ -0,0 +1,39 @@
+package com.purelife.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class MemberSubscriptionRepositoryCustomImpl implements MemberSubscriptionRepositoryCustom {
+
+    private static final String ADVANCE_SQL =
+            "UPDATE member_subscriptions SET next_delivery_date = ? " +
+            "WHERE subscription_id = ? AND subscription_status = 'active' AND next_delivery_date = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Integer> advanceDeliveryDates(List<DeliveryAdvance> advances) {
+        List<Integer> advancedIds = new ArrayList<>();
+        if (advances.isEmpty()) {
+            return advancedIds;
+        }
+
+        List<Object[]> batchArgs = advances.stream()
+                .map(a -> new Object[] { a.nextDate(), a.subscriptionId(), a.currentDate() })
+                .collect(Collectors.toList());
+        int[] updateCounts = jdbcTemplate.batchUpdate(ADVANCE_SQL, batchArgs);
+
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] > 0) {
+                advancedIds.add(advances.get(i).subscriptionId());
+            }
+        }
+        return advancedIds;
+    }
+}
@@ -1,15 +1,27 @@
 package com.purelife.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.purelife.entity.OrderItem;
+import com.purelife.repository.mapper.OrderItemDetailRowMapper;
+import com.purelife.repository.projection.OrderItemDetail;
 
 @Repository
-public interface OrderItemRepository extends CrudRepository<OrderItem, Integer> {
+public interface OrderItemRepository extends CrudRepository<OrderItem, Integer>, OrderItemRepositoryCustom {
 
     // 取得訂單的所有明細
     List<OrderItem> findByOrderId(Integer orderId);
-}
\ No newline at end of file
+
+    // 一次取得多筆訂單的明細（JOIN 商品取得名稱）
+    @Query(value = "SELECT oi.order_id, oi.product_id, p.product_name, oi.spec_info, oi.quantity, oi.unit_price, oi.subtotal " +
+                   "FROM order_items oi LEFT JOIN products p ON p.product_id = oi.product_id " +
+                   "WHERE oi.order_id IN (:orderIds) ORDER BY oi.order_id, oi.item_id",
+           rowMapperClass = OrderItemDetailRowMapper.class)
+    List<OrderItemDetail> findDetailsByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds);
+}
@@ -0,0 +1,14 @@
+package com.purelife.repository;
+
+import java.util.List;
+
+import com.purelife.entity.OrderItem;
+
+/**
+ * 訂單明細的批次寫入（Spring Data 無法表達 JDBC batch，自行實作）
+ */
+public interface OrderItemRepositoryCustom {
+
+    // 批次新增訂單明細（搭配 rewriteBatchedStatements=true 會合併成一條多筆 INSERT）
+    void batchInsert(List<OrderItem> items);
+}
@@ -0,0 +1,38 @@
+package com.purelife.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.purelife.entity.OrderItem;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class OrderItemRepositoryCustomImpl implements OrderItemRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_items (order_id, product_id, spec_info, quantity, unit_price, subtotal) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = items.stream()
+                .map(item -> new Object[] {
+                        item.getOrderId(),
+                        item.getProductId(),
+                        item.getSpecInfo(),
+                        item.getQuantity(),
+                        item.getUnitPrice(),
+                        item.getSubtotal()
+                })
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+}
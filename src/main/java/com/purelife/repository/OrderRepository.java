@@ -1,5 +1,7 @@
 package com.purelife.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,23 +10,67 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.purelife.controller.dto.response.OrderResponse;
 import com.purelife.entity.Order;
+import com.purelife.repository.mapper.AdminOrderRowMapper;
 
 @Repository
-public interface OrderRepository extends CrudRepository<Order, Integer> {
+public interface OrderRepository extends CrudRepository<Order, Integer>, OrderRepositoryCustom {
 
     // 取得會員的所有訂單（依時間倒序）
     @Query("SELECT * FROM orders WHERE member_id = :memberId ORDER BY order_time DESC")
     List<Order> findByMemberIdOrderByOrderTimeDesc(@Param("memberId") Integer memberId);
 
+    // 會員訂單分頁：第一頁
+    @Query("SELECT * FROM orders WHERE member_id = :memberId ORDER BY order_time DESC, order_id DESC LIMIT :limit")
+    List<Order> findByMemberIdPage(@Param("memberId") Integer memberId, @Param("limit") int limit);
+
+    // 會員訂單分頁：從游標（上一頁最後一筆的 order_time, order_id）之後開始
+    @Query("SELECT * FROM orders WHERE member_id = :memberId " +
+           "AND (order_time < :orderTime OR (order_time = :orderTime AND order_id < :orderId)) " +
+           "ORDER BY order_time DESC, order_id DESC LIMIT :limit")
+    List<Order> findByMemberIdPageBefore(@Param("memberId") Integer memberId,
+                                         @Param("orderTime") LocalDateTime orderTime,
+                                         @Param("orderId") Integer orderId,
+                                         @Param("limit") int limit);
+
     // 根據訂單編號查詢
     Optional<Order> findByOrderNumber(String orderNumber);
 
+    // 已存在的訂單編號（續訂冪等檢查用）
+    @Query("SELECT order_number FROM orders WHERE order_number IN (:orderNumbers)")
+    List<String> findExistingOrderNumbers(@Param("orderNumbers") Collection<String> orderNumbers);
+
+    // 依訂單編號批次查詢（批次新增後取回 order_id）
+    @Query("SELECT * FROM orders WHERE order_number IN (:orderNumbers)")
+    List<Order> findByOrderNumberIn(@Param("orderNumbers") Collection<String> orderNumbers);
+
     // 根據訂單ID和會員ID查詢（確保只能查自己的訂單）
     @Query("SELECT * FROM orders WHERE order_id = :orderId AND member_id = :memberId")
     Optional<Order> findByOrderIdAndMemberId(@Param("orderId") Integer orderId, 
                                               @Param("memberId") Integer memberId);
 
-    // 查詢所有訂單
-    List<Order> findAllByOrderByOrderTimeDesc();
+    // 後台訂單列表：JOIN 會員取得姓名，一次查完
+    @Query(value = "SELECT o.*, m.name AS member_name FROM orders o " +
+                   "LEFT JOIN members m ON m.member_id = o.member_id " +
+                   "ORDER BY o.order_time DESC, o.order_id DESC",
+           rowMapperClass = AdminOrderRowMapper.class)
+    List<OrderResponse> findAllAdminViews();
+
+    // 後台訂單分頁（含會員姓名）：第一頁
+    @Query(value = "SELECT o.*, m.name AS member_name FROM orders o " +
+                   "LEFT JOIN members m ON m.member_id = o.member_id " +
+                   "ORDER BY o.order_time DESC, o.order_id DESC LIMIT :limit",
+           rowMapperClass = AdminOrderRowMapper.class)
+    List<OrderResponse> findAdminViewPage(@Param("limit") int limit);
+
+    // 後台訂單分頁（含會員姓名）：從游標之後開始
+    @Query(value = "SELECT o.*, m.name AS member_name FROM orders o " +
+                   "LEFT JOIN members m ON m.member_id = o.member_id " +
+                   "WHERE o.order_time < :orderTime OR (o.order_time = :orderTime AND o.order_id < :orderId) " +
+                   "ORDER BY o.order_time DESC, o.order_id DESC LIMIT :limit",
+           rowMapperClass = AdminOrderRowMapper.class)
+    List<OrderResponse> findAdminViewPageBefore(@Param("orderTime") LocalDateTime orderTime,
+                                                @Param("orderId") Integer orderId,
+                                                @Param("limit") int limit);
 }
\ No newline at end of file
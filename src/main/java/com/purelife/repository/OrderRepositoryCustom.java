@@ -0,0 +1,14 @@
+package com.purelife.repository;
+
+import java.util.List;
+
+import com.purelife.entity.Order;
+
+/**
+ * 訂單的批次寫入（續訂排程用，Spring Data 無法表達 JDBC batch，自行實作）
+ */
+public interface OrderRepositoryCustom {
+
+    // 批次新增訂單（不回填 order_id，需要時再依 order_number 查回）
+    void batchInsert(List<Order> orders);
+}
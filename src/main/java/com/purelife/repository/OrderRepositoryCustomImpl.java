@@ -0,0 +1,44 @@
+package com.purelife.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.purelife.entity.Order;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO orders (member_id, order_number, order_status, payment_status, total_amount, shipping_fee, " +
+            "recipient_name, recipient_phone, recipient_address, payment_method, order_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = orders.stream()
+                .map(order -> new Object[] {
+                        order.getMemberId(),
+                        order.getOrderNumber(),
+                        order.getOrderStatus(),
+                        order.getPaymentStatus(),
+                        order.getTotalAmount(),
+                        order.getShippingFee(),
+                        order.getRecipientName(),
+                        order.getRecipientPhone(),
+                        order.getRecipientAddress(),
+                        order.getPaymentMethod(),
+                        order.getOrderTime()
+                })
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+}
@@ -1,24 +1,43 @@
 package com.purelife.repository;
 
 import com.purelife.entity.Product;
+import com.purelife.repository.mapper.CategoryCountRowMapper;
+import com.purelife.repository.mapper.StockLevelRowMapper;
+import com.purelife.repository.projection.CategoryCount;
+import com.purelife.repository.projection.StockLevel;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends CrudRepository<Product, Integer> {
+public interface ProductRepository extends CrudRepository<Product, Integer>, ProductRepositoryCustom {
 
     // 查詢所有上架商品
     @Query("SELECT * FROM products WHERE product_status = 'available' ORDER BY product_id")
     List<Product> findAllAvailable();
 
+    // 上架商品分頁（依 product_id 游標）
+    @Query("SELECT * FROM products WHERE product_status = 'available' AND product_id > :afterId ORDER BY product_id LIMIT :limit")
+    List<Product> findAvailablePage(@Param("afterId") Integer afterId, @Param("limit") int limit);
+
+    // 依分類查詢上架商品分頁（依 product_id 游標）
+    @Query("SELECT * FROM products WHERE product_status = 'available' AND category = :category AND product_id > :afterId ORDER BY product_id LIMIT :limit")
+    List<Product> findAvailablePageByCategory(@Param("category") String category,
+                                              @Param("afterId") Integer afterId,
+                                              @Param("limit") int limit);
+
     // 後台用 - 顯示上架 + 下架，但不顯示已刪除
     @Query("SELECT * FROM products WHERE product_status != 'deleted' ORDER BY product_id")
     List<Product> findAllForAdmin();
 
+    // 後台商品分頁（依 product_id 游標）
+    @Query("SELECT * FROM products WHERE product_status != 'deleted' AND product_id > :afterId ORDER BY product_id LIMIT :limit")
+    List<Product> findAdminPage(@Param("afterId") Integer afterId, @Param("limit") int limit);
+
     // 依分類查詢上架商品
     @Query("SELECT * FROM products WHERE product_status = 'available' AND category = :category ORDER BY product_id")
     List<Product> findByCategory(@Param("category") String category);
@@ -27,6 +46,23 @@ public interface ProductRepository extends CrudRepository<Product, Integer> {
     @Query("SELECT DISTINCT category FROM products WHERE product_status = 'available'")
     List<String> findAllCategories();
 
+    // 各分類的上架商品數（分類索引啟動時載入用，只回傳分類筆數的資料）
+    @Query(value = "SELECT category, COUNT(*) AS product_count FROM products " +
+                   "WHERE product_status = 'available' AND category IS NOT NULL AND category <> '' " +
+                   "GROUP BY category",
+           rowMapperClass = CategoryCountRowMapper.class)
+    List<CategoryCount> countAvailableByCategory();
+
+    // 所有未刪除商品的庫存（庫存帳本啟動時載入用）
+    @Query(value = "SELECT product_id, stock_quantity FROM products WHERE product_status != 'deleted'",
+           rowMapperClass = StockLevelRowMapper.class)
+    List<StockLevel> findAllStockLevels();
+
+    // 單一商品庫存
+    @Query(value = "SELECT product_id, stock_quantity FROM products WHERE product_id = :productId",
+           rowMapperClass = StockLevelRowMapper.class)
+    Optional<StockLevel> findStockLevel(@Param("productId") Integer productId);
+
     // 查詢新品（按建立時間最新的 4 筆）
     @Query("SELECT * FROM products WHERE product_status = 'available' ORDER BY created_at DESC LIMIT 4")
     List<Product> findNewProducts();
@@ -0,0 +1,26 @@
+package com.purelife.repository;
+
+import java.util.List;
+
+/**
+ * 商品庫存的批次更新（Spring Data 無法表達 JDBC batch，自行實作）
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * 要扣的庫存：商品 ID + 數量
+     */
+    record StockReservation(Integer productId, Integer quantity) {
+    }
+
+    /**
+     * 批次扣庫存並增加銷量：每筆都是「庫存足夠才扣」的條件式 UPDATE，不需先鎖定再檢查
+     * @return 庫存不足（或商品已下架）而沒有扣成功的商品 ID
+     */
+    List<Integer> reserveStock(List<StockReservation> reservations);
+
+    /**
+     * 批次回寫已在記憶體扣掉的庫存與銷量（庫存帳本 write-behind 用，不檢查庫存）
+     */
+    void applyStockDeductions(List<StockReservation> deductions);
+}
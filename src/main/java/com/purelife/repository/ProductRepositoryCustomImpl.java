@@ -0,0 +1,56 @@
+package com.purelife.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String RESERVE_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, sales_count = COALESCE(sales_count, 0) + ? " +
+            "WHERE product_id = ? AND product_status = 'available' AND stock_quantity >= ?";
+
+    private static final String APPLY_DEDUCTION_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, sales_count = COALESCE(sales_count, 0) + ? " +
+            "WHERE product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Integer> reserveStock(List<StockReservation> reservations) {
+        List<Integer> failedProductIds = new ArrayList<>();
+        if (reservations.isEmpty()) {
+            return failedProductIds;
+        }
+
+        List<Object[]> batchArgs = reservations.stream()
+                .map(r -> new Object[] { r.quantity(), r.quantity(), r.productId(), r.quantity() })
+                .collect(Collectors.toList());
+        int[] updateCounts = jdbcTemplate.batchUpdate(RESERVE_STOCK_SQL, batchArgs);
+
+        // 只有影響 1 筆才算扣成功：0 筆 = 條件不成立（庫存不足或已下架）；
+        // 驅動回報 SUCCESS_NO_INFO（-2）等無法確認的結果也當失敗，整筆訂單 rollback，不會多賣
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] != 1) {
+                failedProductIds.add(reservations.get(i).productId());
+            }
+        }
+        return failedProductIds;
+    }
+
+    @Override
+    public void applyStockDeductions(List<StockReservation> deductions) {
+        if (deductions.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = deductions.stream()
+                .map(d -> new Object[] { d.quantity(), d.quantity(), d.productId() })
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(APPLY_DEDUCTION_SQL, batchArgs);
+    }
+}
@@ -0,0 +1,26 @@
+package com.purelife.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.purelife.entity.RenewalCheckpoint;
+
+@Repository
+public interface RenewalCheckpointRepository extends CrudRepository<RenewalCheckpoint, LocalDate> {
+
+    // 寫入進度（主鍵是執行日，不能用 save；進度只會往前，不會被較舊的值蓋掉）
+    @Modifying
+    @Query("INSERT INTO renewal_checkpoints (run_date, last_subscription_id, completed, updated_at) " +
+           "VALUES (:runDate, :lastSubscriptionId, :completed, NOW()) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "last_subscription_id = GREATEST(last_subscription_id, VALUES(last_subscription_id)), " +
+           "completed = VALUES(completed), updated_at = NOW()")
+    void upsert(@Param("runDate") LocalDate runDate,
+                @Param("lastSubscriptionId") Integer lastSubscriptionId,
+                @Param("completed") boolean completed);
+}
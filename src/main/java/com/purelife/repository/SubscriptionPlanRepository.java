@@ -1,7 +1,10 @@
 package com.purelife.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -9,11 +12,16 @@ import org.springframework.stereotype.Repository;
 import com.purelife.entity.SubscriptionPlan;
 
 @Repository
-public interface SubscriptionPlanRepository extends CrudRepository<SubscriptionPlan, Integer> {
+public interface SubscriptionPlanRepository extends CrudRepository<SubscriptionPlan, Integer>, SubscriptionPlanRepositoryCustom {
 
     // 取得某商品的所有訂閱方案
     List<SubscriptionPlan> findByProductId(Integer productId);
 
-    //刪除商品的所有定期購方案
-    void deleteByProductId(@Param("productId") Integer productId);
+    // 一次取得多個商品的訂閱方案（商品列表用，避免 N+1 查詢）
+    List<SubscriptionPlan> findByProductIdIn(Collection<Integer> productIds);
+
+    // 一次刪除多個方案（後台編輯商品時移除的方案）
+    @Modifying
+    @Query("DELETE FROM subscription_plans WHERE plan_id IN (:planIds)")
+    void deleteByPlanIdIn(@Param("planIds") Collection<Integer> planIds);
 }
@@ -0,0 +1,17 @@
+package com.purelife.repository;
+
+import java.util.List;
+
+import com.purelife.entity.SubscriptionPlan;
+
+/**
+ * 訂閱方案的批次寫入（後台編輯商品時只寫有變動的方案）
+ */
+public interface SubscriptionPlanRepositoryCustom {
+
+    // 批次新增方案
+    void batchInsert(List<SubscriptionPlan> plans);
+
+    // 批次更新方案內容（依 plan_id，不改 product_id 與 created_at）
+    void batchUpdate(List<SubscriptionPlan> plans);
+}
@@ -0,0 +1,56 @@
+package com.purelife.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.purelife.entity.SubscriptionPlan;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class SubscriptionPlanRepositoryCustomImpl implements SubscriptionPlanRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO subscription_plans (product_id, cycle_type, cycle_days, discount_rate, created_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE subscription_plans SET cycle_type = ?, cycle_days = ?, discount_rate = ? WHERE plan_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsert(List<SubscriptionPlan> plans) {
+        if (plans.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = plans.stream()
+                .map(plan -> new Object[] {
+                        plan.getProductId(),
+                        plan.getCycleType(),
+                        plan.getCycleDays(),
+                        plan.getDiscountRate(),
+                        plan.getCreatedAt()
+                })
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+
+    @Override
+    public void batchUpdate(List<SubscriptionPlan> plans) {
+        if (plans.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = plans.stream()
+                .map(plan -> new Object[] {
+                        plan.getCycleType(),
+                        plan.getCycleDays(),
+                        plan.getDiscountRate(),
+                        plan.getPlanId()
+                })
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, batchArgs);
+    }
+}
@@ -0,0 +1,40 @@
+package com.purelife.repository.mapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.controller.dto.response.OrderResponse;
+
+/**
+ * 後台訂單列表：orders LEFT JOIN members 的結果轉成 OrderResponse（含會員姓名）
+ */
+public class AdminOrderRowMapper implements RowMapper<OrderResponse> {
+
+    @Override
+    public OrderResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        BigDecimal totalAmount = rs.getBigDecimal("total_amount");
+        BigDecimal shippingFee = rs.getBigDecimal("shipping_fee");
+        String memberName = rs.getString("member_name");
+
+        return OrderResponse.builder()
+                .orderId(rs.getInt("order_id"))
+                .orderNumber(rs.getString("order_number"))
+                .memberName(memberName != null ? memberName : "未知")
+                .orderStatus(rs.getString("order_status"))
+                .paymentStatus(rs.getString("payment_status"))
+                .totalAmount(totalAmount)
+                .shippingFee(shippingFee)
+                .grandTotal(totalAmount.add(shippingFee))
+                .recipientName(rs.getString("recipient_name"))
+                .recipientPhone(rs.getString("recipient_phone"))
+                .recipientAddress(rs.getString("recipient_address"))
+                .paymentMethod(rs.getString("payment_method"))
+                .orderTime(rs.getObject("order_time", LocalDateTime.class))
+                .shippingTime(rs.getObject("shipping_time", LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.purelife.repository.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.controller.dto.response.SubscriptionResponse;
+
+/**
+ * 後台訂閱列表：member_subscriptions JOIN members / subscription_plans / products 的結果轉成 SubscriptionResponse
+ * 方案或商品已不存在時，對應欄位為 null
+ */
+public class AdminSubscriptionRowMapper implements RowMapper<SubscriptionResponse> {
+
+    @Override
+    public SubscriptionResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        String memberName = rs.getString("member_name");
+
+        return SubscriptionResponse.builder()
+                .subscriptionId(rs.getInt("subscription_id"))
+                .planId(rs.getObject("plan_id", Integer.class))
+                .memberName(memberName != null ? memberName : "未知")
+                .subscriptionStatus(rs.getString("subscription_status"))
+                .quantity(rs.getObject("quantity", Integer.class))
+                .nextDeliveryDate(rs.getObject("next_delivery_date", LocalDate.class))
+                .startDate(rs.getObject("start_date", LocalDate.class))
+                .endDate(rs.getObject("end_date", LocalDate.class))
+                .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                .recipientName(rs.getString("recipient_name"))
+                .recipientPhone(rs.getString("recipient_phone"))
+                .recipientAddress(rs.getString("recipient_address"))
+                .paymentMethod(rs.getString("payment_method"))
+                .cycleType(rs.getString("cycle_type"))
+                .cycleDays(rs.getObject("cycle_days", Integer.class))
+                .discountRate(rs.getBigDecimal("discount_rate"))
+                .productId(rs.getObject("product_id", Integer.class))
+                .productName(rs.getString("product_name"))
+                .category(rs.getString("category"))
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.purelife.repository.mapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.controller.dto.response.CartItemResponse;
+
+/**
+ * 購物車列表：carts JOIN products 的結果轉成 CartItemResponse
+ */
+public class CartItemRowMapper implements RowMapper<CartItemResponse> {
+
+    @Override
+    public CartItemResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        BigDecimal price = rs.getBigDecimal("price");
+        BigDecimal promotionPrice = rs.getBigDecimal("promotion_price");
+        int quantity = rs.getInt("quantity");
+
+        // 實際價格（有促銷價就用促銷價）
+        BigDecimal actualPrice = promotionPrice != null ? promotionPrice : price;
+
+        return CartItemResponse.builder()
+                .cartId(rs.getInt("cart_id"))
+                .productId(rs.getInt("product_id"))
+                .productName(rs.getString("product_name"))
+                .category(rs.getString("category"))
+                .price(price)
+                .promotionPrice(promotionPrice)
+                .actualPrice(actualPrice)
+                .quantity(quantity)
+                .subtotal(actualPrice.multiply(BigDecimal.valueOf(quantity)))
+                .productStatus(rs.getString("product_status"))
+                .stockQuantity(rs.getObject("stock_quantity", Integer.class))
+                .addedTime(rs.getObject("added_time", LocalDateTime.class))
+                .imageUrl(rs.getString("image_url"))
+                .build();
+    }
+}
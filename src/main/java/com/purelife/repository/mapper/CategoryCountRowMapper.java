@@ -0,0 +1,16 @@
+package com.purelife.repository.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.repository.projection.CategoryCount;
+
+public class CategoryCountRowMapper implements RowMapper<CategoryCount> {
+
+    @Override
+    public CategoryCount mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new CategoryCount(rs.getString("category"), rs.getInt("product_count"));
+    }
+}
@@ -0,0 +1,17 @@
+package com.purelife.repository.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.repository.projection.DeliverySlot;
+
+public class DeliverySlotRowMapper implements RowMapper<DeliverySlot> {
+
+    @Override
+    public DeliverySlot mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new DeliverySlot(rs.getInt("subscription_id"), rs.getObject("next_delivery_date", LocalDate.class));
+    }
+}
@@ -0,0 +1,23 @@
+package com.purelife.repository.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.repository.projection.OrderItemDetail;
+
+public class OrderItemDetailRowMapper implements RowMapper<OrderItemDetail> {
+
+    @Override
+    public OrderItemDetail mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new OrderItemDetail(
+                rs.getInt("order_id"),
+                rs.getObject("product_id", Integer.class),
+                rs.getString("product_name"),
+                rs.getString("spec_info"),
+                rs.getObject("quantity", Integer.class),
+                rs.getBigDecimal("unit_price"),
+                rs.getBigDecimal("subtotal"));
+    }
+}
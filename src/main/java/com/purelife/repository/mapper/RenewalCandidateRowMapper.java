@@ -0,0 +1,31 @@
+package com.purelife.repository.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.repository.projection.RenewalCandidate;
+
+public class RenewalCandidateRowMapper implements RowMapper<RenewalCandidate> {
+
+    @Override
+    public RenewalCandidate mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new RenewalCandidate(
+                rs.getInt("subscription_id"),
+                rs.getInt("member_id"),
+                rs.getInt("quantity"),
+                rs.getString("recipient_name"),
+                rs.getString("recipient_phone"),
+                rs.getString("recipient_address"),
+                rs.getString("payment_method"),
+                rs.getObject("next_delivery_date", LocalDate.class),
+                rs.getInt("cycle_days"),
+                rs.getBigDecimal("discount_rate"),
+                rs.getInt("product_id"),
+                rs.getBigDecimal("price"),
+                rs.getBigDecimal("promotion_price"),
+                rs.getString("product_status"));
+    }
+}
@@ -0,0 +1,16 @@
+package com.purelife.repository.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.purelife.repository.projection.StockLevel;
+
+public class StockLevelRowMapper implements RowMapper<StockLevel> {
+
+    @Override
+    public StockLevel mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new StockLevel(rs.getInt("product_id"), rs.getInt("stock_quantity"));
+    }
+}
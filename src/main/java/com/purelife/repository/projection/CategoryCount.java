@@ -0,0 +1,7 @@
+package com.purelife.repository.projection;
+
+/**
+ * 分類統計：分類名稱 + 上架商品數
+ */
+public record CategoryCount(String category, Integer productCount) {
+}
@@ -0,0 +1,9 @@
+package com.purelife.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * 訂閱的下次配送日（只取 subscription_id 與 next_delivery_date）
+ */
+public record DeliverySlot(Integer subscriptionId, LocalDate nextDeliveryDate) {
+}
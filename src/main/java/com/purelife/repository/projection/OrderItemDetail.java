@@ -0,0 +1,16 @@
+package com.purelife.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * 訂單明細 + 商品名稱（order_items JOIN products）
+ */
+public record OrderItemDetail(
+        Integer orderId,
+        Integer productId,
+        String productName,
+        String specInfo,
+        Integer quantity,
+        BigDecimal unitPrice,
+        BigDecimal subtotal) {
+}
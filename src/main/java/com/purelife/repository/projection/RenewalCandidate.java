@@ -0,0 +1,24 @@
+package com.purelife.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 到期要續訂出貨的訂閱（JOIN 方案與商品，產生訂單需要的欄位一次取齊）
+ */
+public record RenewalCandidate(
+        Integer subscriptionId,
+        Integer memberId,
+        Integer quantity,
+        String recipientName,
+        String recipientPhone,
+        String recipientAddress,
+        String paymentMethod,
+        LocalDate nextDeliveryDate,
+        Integer cycleDays,
+        BigDecimal discountRate,
+        Integer productId,
+        BigDecimal price,
+        BigDecimal promotionPrice,
+        String productStatus) {
+}
@@ -0,0 +1,7 @@
+package com.purelife.repository.projection;
+
+/**
+ * 商品庫存（只取 product_id 與 stock_quantity）
+ */
+public record StockLevel(Integer productId, Integer stockQuantity) {
+}
@@ -1,32 +1,36 @@
 package com.purelife.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.purelife.config.CacheConfig;
 import com.purelife.controller.dto.request.AdminLoginRequest;
 import com.purelife.controller.dto.response.AdminLoginResponse;
+import com.purelife.controller.dto.response.CursorPage;
 import com.purelife.controller.dto.response.MemberResponse;
 import com.purelife.controller.dto.response.OrderResponse;
 import com.purelife.controller.dto.response.SubscriptionResponse;
 import com.purelife.entity.Admin;
 import com.purelife.entity.Member;
-import com.purelife.entity.MemberSubscription;
 import com.purelife.entity.Order;
 import com.purelife.entity.Product;
-import com.purelife.entity.SubscriptionPlan;
+import com.purelife.event.CatalogChangedEvent;
 import com.purelife.repository.AdminRepository;
 import com.purelife.repository.MemberRepository;
 import com.purelife.repository.MemberSubscriptionRepository;
 import com.purelife.repository.OrderRepository;
 import com.purelife.repository.ProductRepository;
-import com.purelife.repository.SubscriptionPlanRepository;
+import com.purelife.util.CursorUtil;
 import com.purelife.util.JwtUtil;
-import com.purelife.util.PasswordUtil;
 
 import lombok.RequiredArgsConstructor;
 
@@ -39,8 +43,10 @@ public class AdminService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final MemberSubscriptionRepository subscriptionRepository;
-    private final SubscriptionPlanRepository planRepository;
     private final JwtUtil jwtUtil;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordHashingService passwordHashingService;
+    private final DeliveryCalendar deliveryCalendar;
 
     /**
      * 管理員登入
@@ -55,17 +61,19 @@ public class AdminService {
             throw new RuntimeException("帳號已被停用");
         }
 
-        // 驗證密碼
-        String[] parts = admin.getPasswordHash().split(":");
-        String salt = parts[0];
-        String storedHash = parts[1];
-
-        if (!PasswordUtil.verifyPassword(request.getPassword(), salt, storedHash)) {
+        // 驗證密碼（舊格式 salt:hash 也能驗證）
+        if (!passwordHashingService.matches(request.getPassword(), admin.getPasswordHash())) {
             throw new RuntimeException("帳號或密碼錯誤");
         }
 
+        // 舊格式或成本參數已調整：趁有明文密碼時重新雜湊
+        if (passwordHashingService.needsRehash(admin.getPasswordHash())) {
+            adminRepository.updatePasswordHash(admin.getAdminId(),
+                    passwordHashingService.hash(request.getPassword()));
+        }
+
         // 產生 JWT Token（加上 admin 標記）
-        String token = jwtUtil.generateToken(admin.getAdminId(), "admin:" + admin.getAccount());
+        String token = jwtUtil.generateToken(admin.getAdminId(), JwtUtil.ADMIN_ACCOUNT_PREFIX + admin.getAccount());
 
         return AdminLoginResponse.builder()
                 .token(token)
@@ -86,14 +94,40 @@ public class AdminService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 取得會員分頁（依會員 ID 游標）
+     */
+    public CursorPage<MemberResponse> getMembersPage(Integer after, Integer limit) {
+        int pageSize = CursorUtil.normalizeLimit(limit);
+        List<MemberResponse> members = memberRepository.findPage(CursorUtil.afterId(after), pageSize + 1)
+                .stream()
+                .map(this::convertMemberToResponse)
+                .collect(Collectors.toList());
+        return CursorUtil.toPage(members, pageSize, member -> String.valueOf(member.getMemberId()));
+    }
+
     /**
      * 取得所有訂單
      */
     public List<OrderResponse> getAllOrders() {
-        List<Order> orders = orderRepository.findAllByOrderByOrderTimeDesc();
-        return orders.stream()
-                .map(this::convertOrderToResponse)
-                .collect(Collectors.toList());
+        return orderRepository.findAllAdminViews();
+    }
+
+    /**
+     * 取得訂單分頁（依下單時間新到舊，游標為上一頁最後一筆的 order_time + order_id）
+     */
+    public CursorPage<OrderResponse> getOrdersPage(String after, Integer limit) {
+        int pageSize = CursorUtil.normalizeLimit(limit);
+
+        List<OrderResponse> orders;
+        if (after != null && !after.isBlank()) {
+            CursorUtil.OrderCursor cursor = CursorUtil.decodeOrderCursor(after);
+            orders = orderRepository.findAdminViewPageBefore(cursor.orderTime(), cursor.orderId(), pageSize + 1);
+        } else {
+            orders = orderRepository.findAdminViewPage(pageSize + 1);
+        }
+        return CursorUtil.toPage(orders, pageSize,
+                order -> CursorUtil.encodeOrderCursor(order.getOrderTime(), order.getOrderId()));
     }
 
     /**
@@ -124,9 +158,36 @@ public class AdminService {
      * 取得所有訂閱
      */
     public List<SubscriptionResponse> getAllSubscriptions() {
-        return StreamSupport.stream(subscriptionRepository.findAll().spliterator(), false)
-                .map(this::convertSubscriptionToResponse)
-                .collect(Collectors.toList());
+        return subscriptionRepository.findAllAdminViews();
+    }
+
+    /**
+     * 取得訂閱分頁（依訂閱 ID 游標）
+     */
+    public CursorPage<SubscriptionResponse> getSubscriptionsPage(Integer after, Integer limit) {
+        int pageSize = CursorUtil.normalizeLimit(limit);
+        List<SubscriptionResponse> subscriptions = subscriptionRepository
+                .findAdminViewPage(CursorUtil.afterId(after), pageSize + 1);
+        return CursorUtil.toPage(subscriptions, pageSize,
+                subscription -> String.valueOf(subscription.getSubscriptionId()));
+    }
+
+    /**
+     * 即將出貨：from 起 days 天內每天要出貨的訂閱數（從配送行事曆取得）
+     */
+    public NavigableMap<LocalDate, Integer> getUpcomingShipments(LocalDate from, int days) {
+        return deliveryCalendar.countBetween(from, from.plusDays(Math.max(days, 1) - 1));
+    }
+
+    /**
+     * 某一天要出貨的訂閱
+     */
+    public List<SubscriptionResponse> getShipmentsOn(LocalDate date) {
+        List<Integer> subscriptionIds = deliveryCalendar.dueOn(date);
+        if (subscriptionIds.isEmpty()) {
+            return List.of();
+        }
+        return subscriptionRepository.findAdminViewsByIds(subscriptionIds);
     }
 
     // ===== 轉換方法 =====
@@ -143,62 +204,6 @@ public class AdminService {
                 .build();
     }
 
-    private OrderResponse convertOrderToResponse(Order order) {
-        // 取得會員名稱
-        String memberName = memberRepository.findById(order.getMemberId())
-                .map(Member::getName)
-                .orElse("未知");
-
-        return OrderResponse.builder()
-                .orderId(order.getOrderId())
-                .orderNumber(order.getOrderNumber())
-                .orderStatus(order.getOrderStatus())
-                .paymentStatus(order.getPaymentStatus())
-                .totalAmount(order.getTotalAmount())
-                .shippingFee(order.getShippingFee())
-                .grandTotal(order.getTotalAmount().add(order.getShippingFee()))
-                .recipientName(order.getRecipientName())
-                .recipientPhone(order.getRecipientPhone())
-                .recipientAddress(order.getRecipientAddress())
-                .paymentMethod(order.getPaymentMethod())
-                .orderTime(order.getOrderTime())
-                .shippingTime(order.getShippingTime())
-                .build();
-    }
-
-    private SubscriptionResponse convertSubscriptionToResponse(MemberSubscription subscription) {
-        SubscriptionPlan plan = planRepository.findById(subscription.getPlanId())
-                .orElse(null);
-        
-        Product product = plan != null 
-                ? productRepository.findById(plan.getProductId()).orElse(null)
-                : null;
-
-        String memberName = memberRepository.findById(subscription.getMemberId())
-                .map(Member::getName)
-                .orElse("未知");
-
-        return SubscriptionResponse.builder()
-                .subscriptionId(subscription.getSubscriptionId())
-                .planId(subscription.getPlanId())
-                .subscriptionStatus(subscription.getSubscriptionStatus())
-                .quantity(subscription.getQuantity())
-                .nextDeliveryDate(subscription.getNextDeliveryDate())
-                .startDate(subscription.getStartDate())
-                .endDate(subscription.getEndDate())
-                .createdAt(subscription.getCreatedAt())
-                .recipientName(subscription.getRecipientName())
-                .recipientPhone(subscription.getRecipientPhone())
-                .recipientAddress(subscription.getRecipientAddress())
-                .paymentMethod(subscription.getPaymentMethod())
-                .cycleType(plan != null ? plan.getCycleType() : null)
-                .cycleDays(plan != null ? plan.getCycleDays() : null)
-                .discountRate(plan != null ? plan.getDiscountRate() : null)
-                .productId(product != null ? product.getProductId() : null)
-                .productName(product != null ? product.getProductName() : null)
-                .category(product != null ? product.getCategory() : null)
-                .build();
-    }
     // ===== 商品管理 =====
 
     /**
@@ -213,22 +218,30 @@ public class AdminService {
      * 新增商品
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_CACHE, allEntries = true)
     public Product createProduct(Product product) {
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
         if (product.getProductStatus() == null) {
             product.setProductStatus("available");
         }
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                savedProduct.getProductId(), null, null,
+                savedProduct.getCategory(), savedProduct.getProductStatus()));
+        return savedProduct;
     }
 
     /**
      * 更新商品
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_CACHE, allEntries = true)
     public Product updateProduct(Integer productId, Product productData) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("商品不存在"));
+        String previousCategory = product.getCategory();
+        String previousStatus = product.getProductStatus();
 
         product.setCategory(productData.getCategory());
         product.setProductName(productData.getProductName());
@@ -245,30 +258,41 @@ public class AdminService {
     
         product.setUpdatedAt(LocalDateTime.now());
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                productId, previousCategory, previousStatus,
+                savedProduct.getCategory(), savedProduct.getProductStatus()));
+        return savedProduct;
     }
 
     /**
      * 更新商品狀態（上下架）
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_CACHE, allEntries = true)
     public void updateProductStatus(Integer productId, String status) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("商品不存在"));
+        String previousStatus = product.getProductStatus();
         
         product.setProductStatus(status);
         product.setUpdatedAt(LocalDateTime.now());
         productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                productId, product.getCategory(), previousStatus,
+                product.getCategory(), product.getProductStatus()));
     }
 
     /**
      * 刪除商品
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_CACHE, allEntries = true)
     public void deleteProduct(Integer productId) {
-        if (!productRepository.existsById(productId)) {
-            throw new RuntimeException("商品不存在");
-        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("商品不存在"));
         productRepository.deleteById(productId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                productId, product.getCategory(), product.getProductStatus(), null, null));
     }
 }
\ No newline at end of file
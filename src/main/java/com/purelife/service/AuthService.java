@@ -8,8 +8,8 @@ import com.purelife.entity.Member;
 import com.purelife.exception.BusinessException;
 import com.purelife.repository.MemberRepository;
 import com.purelife.util.JwtUtil;
-import com.purelife.util.PasswordUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +23,11 @@ public class AuthService {
     //final需要在建構子裡面被賦值
     private final MemberRepository memberRepository;
     private final JwtUtil jwtUtil;
+    private final CartService cartService;
+    private final MemberCache memberCache;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final EmailRegistry emailRegistry;
 
     // 省略這段建構子，因為有 @RequiredArgsConstructor
     // public AuthService(MemberRepository memberRepository) {
@@ -31,51 +36,86 @@ public class AuthService {
     
     @Transactional
     public Member register(RegisterRequest request) {
-        // 檢查 Email 是否已存在
-        if (memberRepository.existsByEmail(request.getEmail())) {
+        // 檢查 Email 是否已存在（布隆過濾器確定沒有就不查資料庫）
+        if (emailRegistry.isTaken(request.getEmail())) {
             throw new BusinessException("Email已被使用");
         }
         
-        // 生成 salt 並加密密碼
-        String salt = PasswordUtil.generateSalt();
-        String hashedPassword = PasswordUtil.hashPassword(request.getPassword(), salt);
+        // 加密密碼（格式：演算法代號:參數:salt:hash）
+        String passwordHash = passwordHashingService.hash(request.getPassword());
         
         // 建立新會員
         Member member = new Member();
         member.setAccount(request.getEmail()); 
         member.setName(request.getName());
         member.setEmail(request.getEmail());
-        member.setPasswordHash(salt + ":" + hashedPassword);  // 儲存格式：salt:hash
+        member.setPasswordHash(passwordHash);
         member.setPhone(request.getPhone());
         member.setMemberLevel("general");
         member.setRegistrationTime(LocalDateTime.now());
         member.setIsActive(true);
         
-        return memberRepository.save(member);
+        Member saved;
+        try {
+            saved = memberRepository.save(member);
+        } catch (DuplicateKeyException e) {
+            // 同時註冊同一個 Email：交給資料庫唯一索引判斷
+            throw new BusinessException("Email已被使用");
+        }
+        emailRegistry.add(saved.getEmail());
+        return saved;
+    }
+
+    /**
+     * 檢查 Email 是否已被使用（註冊頁即時檢查用）
+     */
+    public boolean isEmailTaken(String email) {
+        return emailRegistry.isTaken(email);
     }
     
     /**
      * 登入 - 回傳 LoginResponse（含 JWT Token）
+     * 有訪客購物車時一併合併進會員購物車
      */
-    public LoginResponse login(LoginRequest request) {
+    public LoginResponse login(LoginRequest request, String guestCartId, String clientIp) {
+        // 失敗次數過多直接拒絕（不查資料庫、不算雜湊）
+        loginAttemptLimiter.checkAllowed(request.getEmail(), clientIp);
+
         // 查詢會員
-        Member member = memberRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new BusinessException("帳號或密碼錯誤"));
+        Member member = memberRepository.findByEmail(request.getEmail()).orElse(null);
+        if (member == null) {
+            loginAttemptLimiter.recordFailure(request.getEmail(), clientIp);
+            throw new BusinessException("帳號或密碼錯誤");
+        }
         
         // 檢查帳號是否啟用
         if (!member.getIsActive()) {
             throw new BusinessException("帳號已被停用");
         }
         
-        // 驗證密碼
-        String[] parts = member.getPasswordHash().split(":");
-        String salt = parts[0];
-        String storedHash = parts[1];
-        
-        if (!PasswordUtil.verifyPassword(request.getPassword(), salt, storedHash)) {
+        // 驗證密碼（舊格式 salt:hash 也能驗證）
+        if (!passwordHashingService.matches(request.getPassword(), member.getPasswordHash())) {
+            loginAttemptLimiter.recordFailure(request.getEmail(), clientIp);
             throw new BusinessException("帳號或密碼錯誤");
         }
+        loginAttemptLimiter.recordSuccess(request.getEmail());
+
+        // 舊格式或成本參數已調整：趁有明文密碼時重新雜湊
+        if (passwordHashingService.needsRehash(member.getPasswordHash())) {
+            memberRepository.updatePasswordHash(member.getMemberId(),
+                    passwordHashingService.hash(request.getPassword()));
+            memberCache.evict(member.getMemberId());
+        }
         
+        // 合併訪客購物車（失敗不影響登入）
+        if (guestCartId != null) {
+            try {
+                cartService.mergeGuestCart(member.getMemberId(), guestCartId);
+            } catch (RuntimeException e) {
+                System.err.println("訪客購物車合併失敗：" + e.getMessage());
+            }
+        }
+
         // 產生 JWT Token
         String token = jwtUtil.generateToken(member.getMemberId(), member.getAccount());
         
@@ -94,7 +134,7 @@ public class AuthService {
      * 根據 ID 取得會員（給 JWT Filter 用）
      */
     public Member getMemberById(Integer memberId) {
-        return memberRepository.findById(memberId)
+        return memberCache.get(memberId)
                                .orElseThrow(() -> new BusinessException("會員不存在"));
     }
 }
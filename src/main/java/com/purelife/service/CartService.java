@@ -2,14 +2,20 @@ package com.purelife.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.purelife.controller.dto.request.AddToCartRequest;
 import com.purelife.controller.dto.response.CartItemResponse;
+import com.purelife.controller.dto.response.ProductResponse;
 import com.purelife.entity.Cart;
 import com.purelife.entity.Product;
 import com.purelife.repository.CartRepository;
@@ -23,16 +29,48 @@ public class CartService {
 
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
+    private final GuestCartStore guestCartStore;
+    // 商品目錄快取（緩衝模式下調整數量不查 products）
+    private final ProductService productService;
+    // 記憶體庫存帳本（stock.ledger.enabled=true 才有）
+    private final ObjectProvider<StockLedger> stockLedgerProvider;
+    // 購物車數量寫入緩衝（cart.write-buffer.enabled=true 才有）
+    private final ObjectProvider<CartWriteBuffer> cartWriteBufferProvider;
 
     /**
-     * 取得會員的購物車列表
+     * 取得會員的購物車列表（carts JOIN products 一次查完）
      */
     public List<CartItemResponse> getCartItems(Integer memberId) {
-        List<Cart> carts = cartRepository.findByMemberId(memberId);
+        List<CartItemResponse> items = cartRepository.findItemsByMemberId(memberId);
 
-        return carts.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        StockLedger stockLedger = stockLedgerProvider.getIfAvailable();
+        if (stockLedger != null) {
+            items.forEach(item -> item.setStockQuantity(stockLedger.getAvailable(item.getProductId())));
+        }
+
+        // 還沒寫回的數量以緩衝為準
+        CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+        if (cartWriteBuffer != null) {
+            Map<Integer, Integer> buffered = cartWriteBuffer.getQuantities(memberId);
+            for (CartItemResponse item : items) {
+                Integer quantity = buffered.get(item.getCartId());
+                if (quantity != null) {
+                    item.setQuantity(quantity);
+                    item.setSubtotal(item.getActualPrice().multiply(BigDecimal.valueOf(quantity)));
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 把緩衝中的數量寫回 carts（結帳前呼叫，會加入呼叫端的交易）
+     */
+    public void flushPendingUpdates(Integer memberId) {
+        CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+        if (cartWriteBuffer != null) {
+            cartWriteBuffer.flushMember(memberId);
+        }
     }
 
     /**
@@ -54,8 +92,13 @@ public class CartService {
                 .orElse(null);
 
         if (cart != null) {
-            // 已存在，增加數量
-            cart.setQuantity(cart.getQuantity() + request.getQuantity());
+            // 已存在，增加數量（緩衝中還沒寫回的數量一併寫入）
+            CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+            CartWriteBuffer.PendingUpdate buffered = cartWriteBuffer != null
+                    ? cartWriteBuffer.discard(cart.getCartId())
+                    : null;
+            int baseQuantity = buffered != null ? buffered.quantity() : cart.getQuantity();
+            cart.setQuantity(baseQuantity + request.getQuantity());
         } else {
             // 不存在，新增
             cart = new Cart();
@@ -66,12 +109,13 @@ public class CartService {
         }
 
         // 4. 檢查庫存
-        if (cart.getQuantity() > product.getStockQuantity()) {
-            throw new RuntimeException("庫存不足，目前庫存：" + product.getStockQuantity());
+        int stock = getAvailableStock(product);
+        if (cart.getQuantity() > stock) {
+            throw new RuntimeException("庫存不足，目前庫存：" + stock);
         }
 
         Cart savedCart = cartRepository.save(cart);
-        return convertToResponse(savedCart);
+        return convertToResponse(savedCart, product);
     }
 
     /**
@@ -79,6 +123,11 @@ public class CartService {
      */
     @Transactional
     public CartItemResponse updateQuantity(Integer memberId, Integer cartId, Integer quantity) {
+        CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+        if (cartWriteBuffer != null) {
+            return updateQuantityBuffered(cartWriteBuffer, memberId, cartId, quantity);
+        }
+
         // 1. 檢查購物車項目是否存在且屬於該會員
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new RuntimeException("購物車項目不存在"));
@@ -91,15 +140,47 @@ public class CartService {
         Product product = productRepository.findById(cart.getProductId())
                 .orElseThrow(() -> new RuntimeException("商品不存在"));
 
-        if (quantity > product.getStockQuantity()) {
-            throw new RuntimeException("庫存不足，目前庫存：" + product.getStockQuantity());
+        int stock = getAvailableStock(product);
+        if (quantity > stock) {
+            throw new RuntimeException("庫存不足，目前庫存：" + stock);
         }
 
         // 3. 更新數量
         cart.setQuantity(quantity);
         Cart savedCart = cartRepository.save(cart);
 
-        return convertToResponse(savedCart);
+        return convertToResponse(savedCart, product);
+    }
+
+    /**
+     * 更新購物車數量（寫入緩衝）：同一項目連續修改只在緩衝中覆蓋，由排程合併成一次 UPDATE
+     */
+    private CartItemResponse updateQuantityBuffered(CartWriteBuffer cartWriteBuffer,
+                                                    Integer memberId, Integer cartId, Integer quantity) {
+        // 1. 緩衝中已有這個項目就不用再查 carts
+        CartWriteBuffer.PendingUpdate buffered = cartWriteBuffer.get(cartId);
+        Cart cart = buffered != null
+                ? buffered.toCart()
+                : cartRepository.findById(cartId)
+                        .orElseThrow(() -> new RuntimeException("購物車項目不存在"));
+
+        if (!cart.getMemberId().equals(memberId)) {
+            throw new RuntimeException("無權限操作此購物車項目");
+        }
+
+        // 2. 檢查庫存：商品從目錄快取取得，每次點擊不查資料庫（快取的庫存可能稍舊，結帳時的條件式扣庫存才是準的）
+        ProductResponse product = productService.getProductById(cart.getProductId());
+
+        int stock = getAvailableStock(product.getProductId(), product.getStockQuantity());
+        if (quantity > stock) {
+            throw new RuntimeException("庫存不足，目前庫存：" + stock);
+        }
+
+        // 3. 放進緩衝
+        cartWriteBuffer.put(cart, quantity);
+        cart.setQuantity(quantity);
+
+        return convertToResponse(cart, product, stock);
     }
 
     /**
@@ -115,6 +196,11 @@ public class CartService {
         }
 
         cartRepository.delete(cart);
+
+        CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+        if (cartWriteBuffer != null) {
+            cartWriteBuffer.discard(cartId);
+        }
     }
 
     /**
@@ -123,25 +209,206 @@ public class CartService {
     @Transactional
     public void clearCart(Integer memberId) {
         cartRepository.deleteByMemberId(memberId);
+
+        CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+        if (cartWriteBuffer != null) {
+            cartWriteBuffer.discardMember(memberId);
+        }
     }
 
     /**
-     * 計算購物車總金額
+     * 計算購物車總金額（直接在資料庫加總，不組 DTO）
+     * 有還沒寫回的數量時改用購物車列表加總
      */
     public BigDecimal getCartTotal(Integer memberId) {
-        List<CartItemResponse> items = getCartItems(memberId);
-        return items.stream()
+        CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+        if (cartWriteBuffer != null && !cartWriteBuffer.getQuantities(memberId).isEmpty()) {
+            return getCartItems(memberId).stream()
+                    .map(CartItemResponse::getSubtotal)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+        return cartRepository.sumTotalByMemberId(memberId);
+    }
+
+    // ===== 訪客購物車（cartId 即商品 ID） =====
+
+    /**
+     * 取得訪客購物車列表（商品一次 IN 查詢）
+     */
+    public List<CartItemResponse> getGuestCartItems(String guestCartId) {
+        Map<Integer, Integer> quantities = guestCartStore.getItems(guestCartId);
+        if (quantities.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Product> products = findProducts(quantities.keySet());
+        List<CartItemResponse> items = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product != null) {
+                items.add(convertToResponse(toGuestLine(productId, quantity), product));
+            }
+        });
+        return items;
+    }
+
+    /**
+     * 新增商品到訪客購物車
+     */
+    public CartItemResponse addToGuestCart(String guestCartId, AddToCartRequest request) {
+        Product product = productRepository.findById(request.getProductId())
+                .orElseThrow(() -> new RuntimeException("商品不存在"));
+
+        if (!"available".equals(product.getProductStatus())) {
+            throw new RuntimeException("商品目前無法購買");
+        }
+
+        Integer current = guestCartStore.getItems(guestCartId).get(request.getProductId());
+        int quantity = (current != null ? current : 0) + request.getQuantity();
+
+        int stock = getAvailableStock(product);
+        if (quantity > stock) {
+            throw new RuntimeException("庫存不足，目前庫存：" + stock);
+        }
+
+        guestCartStore.setQuantity(guestCartId, request.getProductId(), quantity);
+        return convertToResponse(toGuestLine(request.getProductId(), quantity), product);
+    }
+
+    /**
+     * 更新訪客購物車數量
+     */
+    public CartItemResponse updateGuestQuantity(String guestCartId, Integer productId, Integer quantity) {
+        if (!guestCartStore.getItems(guestCartId).containsKey(productId)) {
+            throw new RuntimeException("購物車項目不存在");
+        }
+
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("商品不存在"));
+
+        int stock = getAvailableStock(product);
+        if (quantity > stock) {
+            throw new RuntimeException("庫存不足，目前庫存：" + stock);
+        }
+
+        guestCartStore.setQuantity(guestCartId, productId, quantity);
+        return convertToResponse(toGuestLine(productId, quantity), product);
+    }
+
+    /**
+     * 刪除訪客購物車項目
+     */
+    public void removeFromGuestCart(String guestCartId, Integer productId) {
+        if (!guestCartStore.remove(guestCartId, productId)) {
+            throw new RuntimeException("購物車項目不存在");
+        }
+    }
+
+    /**
+     * 清空訪客購物車
+     */
+    public void clearGuestCart(String guestCartId) {
+        guestCartStore.clear(guestCartId);
+    }
+
+    /**
+     * 計算訪客購物車總金額
+     */
+    public BigDecimal getGuestCartTotal(String guestCartId) {
+        return getGuestCartItems(guestCartId).stream()
                 .map(CartItemResponse::getSubtotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
     /**
-     * 轉換 Cart Entity 為 Response DTO
+     * 登入時把訪客購物車合併進會員購物車（批次 INSERT / UPDATE，數量以庫存為上限）
      */
-    private CartItemResponse convertToResponse(Cart cart) {
-        Product product = productRepository.findById(cart.getProductId())
-                .orElseThrow(() -> new RuntimeException("商品不存在"));
+    @Transactional
+    public void mergeGuestCart(Integer memberId, String guestCartId) {
+        Map<Integer, Integer> quantities = guestCartStore.getItems(guestCartId);
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        // 先寫回緩衝中的數量，下面讀到的才是最新值
+        flushPendingUpdates(memberId);
+
+        Map<Integer, Cart> existing = cartRepository.findByMemberId(memberId).stream()
+                .collect(Collectors.toMap(Cart::getProductId, Function.identity(), (a, b) -> a));
+        Map<Integer, Product> products = findProducts(quantities.keySet());
+
+        List<Cart> inserts = new ArrayList<>();
+        List<Cart> updates = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null || !"available".equals(product.getProductStatus())) {
+                return; // 已下架或刪除的商品不合併
+            }
+
+            Cart cart = existing.get(productId);
+            int merged = Math.min((cart != null ? cart.getQuantity() : 0) + quantity, getAvailableStock(product));
+
+            if (cart != null) {
+                if (merged > cart.getQuantity()) {
+                    cart.setQuantity(merged);
+                    updates.add(cart);
+                }
+            } else if (merged > 0) {
+                Cart newCart = new Cart();
+                newCart.setMemberId(memberId);
+                newCart.setProductId(productId);
+                newCart.setQuantity(merged);
+                newCart.setAddedTime(now);
+                inserts.add(newCart);
+            }
+        });
+
+        cartRepository.batchInsert(inserts);
+        cartRepository.batchUpdateQuantities(updates);
+        guestCartStore.clear(guestCartId);
+
+        // 合併後的數量已寫入，緩衝中的舊值不能再覆蓋回去
+        CartWriteBuffer cartWriteBuffer = cartWriteBufferProvider.getIfAvailable();
+        if (cartWriteBuffer != null) {
+            updates.forEach(cart -> cartWriteBuffer.discard(cart.getCartId()));
+        }
+    }
+
+    private Map<Integer, Product> findProducts(Iterable<Integer> productIds) {
+        return StreamSupport.stream(productRepository.findAllById(productIds).spliterator(), false)
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+    }
+
+    // 訪客購物車沒有 cart_id，用商品 ID 當作項目 ID
+    private Cart toGuestLine(Integer productId, Integer quantity) {
+        Cart cart = new Cart();
+        cart.setCartId(productId);
+        cart.setProductId(productId);
+        cart.setQuantity(quantity);
+        return cart;
+    }
 
+    /**
+     * 可售庫存：有啟用庫存帳本就以帳本為準（資料庫的 stock_quantity 是批次回寫的，會稍微落後）
+     */
+    private int getAvailableStock(Product product) {
+        return getAvailableStock(product.getProductId(), product.getStockQuantity());
+    }
+
+    private int getAvailableStock(Integer productId, Integer stockQuantity) {
+        StockLedger stockLedger = stockLedgerProvider.getIfAvailable();
+        if (stockLedger != null) {
+            return stockLedger.getAvailable(productId);
+        }
+        return stockQuantity != null ? stockQuantity : 0;
+    }
+
+    /**
+     * 轉換 Cart Entity 為 Response DTO
+     */
+    private CartItemResponse convertToResponse(Cart cart, Product product) {
         // 計算實際價格（有促銷價就用促銷價）
         BigDecimal actualPrice = product.getPromotionPrice() != null
                 ? product.getPromotionPrice()
@@ -161,7 +428,32 @@ public class CartService {
                 .quantity(cart.getQuantity())
                 .subtotal(subtotal)
                 .productStatus(product.getProductStatus())
-                .stockQuantity(product.getStockQuantity())
+                .stockQuantity(getAvailableStock(product))
+                .addedTime(cart.getAddedTime())
+                .imageUrl(product.getImageUrl())
+                .build();
+    }
+
+    /**
+     * 轉換 Cart 為 Response DTO（商品資料來自目錄快取）
+     */
+    private CartItemResponse convertToResponse(Cart cart, ProductResponse product, int stock) {
+        BigDecimal actualPrice = product.getPromotionPrice() != null
+                ? product.getPromotionPrice()
+                : product.getPrice();
+
+        return CartItemResponse.builder()
+                .cartId(cart.getCartId())
+                .productId(product.getProductId())
+                .productName(product.getProductName())
+                .category(product.getCategory())
+                .price(product.getPrice())
+                .promotionPrice(product.getPromotionPrice())
+                .actualPrice(actualPrice)
+                .quantity(cart.getQuantity())
+                .subtotal(actualPrice.multiply(BigDecimal.valueOf(cart.getQuantity())))
+                .productStatus(product.getProductStatus())
+                .stockQuantity(stock)
                 .addedTime(cart.getAddedTime())
                 .imageUrl(product.getImageUrl())
                 .build();
@@ -0,0 +1,171 @@
+package com.purelife.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.purelife.entity.Cart;
+import com.purelife.repository.CartRepository;
+import com.purelife.repository.CartRepositoryCustom.QuantityChange;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 購物車數量寫入緩衝（cart.write-buffer.enabled=true 才啟用）
+ *
+ * 使用者連續按 +/- 時，同一個 cartId 只保留最後的數量，由排程一次批次 UPDATE；
+ * 讀取購物車時以緩衝中的數量覆蓋，使用者看到的永遠是自己剛改的值。
+ * 結帳前會先把該會員的緩衝寫回。緩衝是單機狀態，只適用單一實例部署。
+ *
+ * 排程寫回是條件式 UPDATE：資料庫數量仍是緩衝開始時看到的值（baseQuantity）才寫入，
+ * 期間被加入購物車、合併購物車等其他寫入改過的項目，以資料庫為準、丟棄緩衝值。
+ */
+@Component
+@ConditionalOnProperty(name = "cart.write-buffer.enabled", havingValue = "true")
+public class CartWriteBuffer {
+
+    /**
+     * 尚未寫回的數量（連同擁有者與商品，後續點擊不用再查 carts）
+     * baseQuantity 是緩衝期間資料庫裡應有的數量，寫回時用來判斷有沒有被其他寫入改過
+     */
+    public record PendingUpdate(Integer cartId, Integer memberId, Integer productId,
+                                Integer quantity, Integer baseQuantity, LocalDateTime addedTime) {
+
+        public Cart toCart() {
+            Cart cart = new Cart();
+            cart.setCartId(cartId);
+            cart.setMemberId(memberId);
+            cart.setProductId(productId);
+            cart.setQuantity(quantity);
+            cart.setAddedTime(addedTime);
+            return cart;
+        }
+    }
+
+    private final CartRepository cartRepository;
+
+    // cartId → 最新數量（緩衝時間很短，筆數不多，依會員查詢直接掃過即可）
+    private final Map<Integer, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    public CartWriteBuffer(CartRepository cartRepository) {
+        this.cartRepository = cartRepository;
+    }
+
+    /**
+     * 記錄新的數量（覆蓋同一個 cartId 之前的值）
+     * cart 的數量是呼叫端目前看到的值：緩衝中沒有這個項目時，就是資料庫的數量（之後寫回的比對基準）
+     */
+    public void put(Cart cart, Integer quantity) {
+        pending.compute(cart.getCartId(), (cartId, current) -> new PendingUpdate(
+                cartId, cart.getMemberId(), cart.getProductId(), quantity,
+                current != null ? current.baseQuantity() : cart.getQuantity(),
+                cart.getAddedTime()));
+    }
+
+    /**
+     * 取得緩衝中的數量（沒有回傳 null）
+     */
+    public PendingUpdate get(Integer cartId) {
+        return pending.get(cartId);
+    }
+
+    /**
+     * 取得會員所有緩衝中的數量：cartId → 數量
+     */
+    public Map<Integer, Integer> getQuantities(Integer memberId) {
+        Map<Integer, Integer> quantities = new HashMap<>();
+        for (PendingUpdate update : pending.values()) {
+            if (update.memberId().equals(memberId)) {
+                quantities.put(update.cartId(), update.quantity());
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * 丟棄緩衝（項目被刪除或改由其他寫入覆蓋時）
+     */
+    public PendingUpdate discard(Integer cartId) {
+        return pending.remove(cartId);
+    }
+
+    /**
+     * 丟棄會員所有緩衝（清空購物車時）
+     */
+    public void discardMember(Integer memberId) {
+        pending.values().removeIf(update -> update.memberId().equals(memberId));
+    }
+
+    /**
+     * 立即寫回會員的緩衝（結帳前、合併購物車前呼叫，會加入呼叫端的交易）
+     * 緩衝先不移除：交易 rollback 時仍由排程寫回，結帳成功則由清空購物車一併丟棄
+     */
+    public void flushMember(Integer memberId) {
+        List<Cart> carts = new ArrayList<>();
+        for (PendingUpdate update : pending.values()) {
+            if (update.memberId().equals(memberId)) {
+                carts.add(update.toCart());
+            }
+        }
+        if (!carts.isEmpty()) {
+            cartRepository.batchUpdateQuantities(carts);
+        }
+    }
+
+    /**
+     * 排程寫回所有緩衝
+     */
+    @Scheduled(fixedDelayString = "${cart.write-buffer.flush-interval-ms:500}")
+    public void flush() {
+        try {
+            write(new ArrayList<>(pending.values()));
+        } catch (RuntimeException e) {
+            // 寫回失敗：保留在緩衝，下一輪再試
+            System.err.println("購物車數量寫回失敗，稍後重試：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 關閉前把剩下的緩衝寫回
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(List<PendingUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        List<QuantityChange> changes = new ArrayList<>();
+        for (PendingUpdate update : updates) {
+            changes.add(new QuantityChange(update.cartId(), update.baseQuantity(), update.quantity()));
+        }
+
+        Set<Integer> applied = Set.copyOf(cartRepository.batchCompareAndSetQuantities(changes));
+
+        for (PendingUpdate update : updates) {
+            pending.computeIfPresent(update.cartId(), (cartId, current) -> {
+                if (!applied.contains(cartId)) {
+                    // 資料庫已被其他寫入改過：以資料庫為準，同一個基準的緩衝值一併丟棄
+                    return current.baseQuantity().equals(update.baseQuantity()) ? null : current;
+                }
+                if (current == update) {
+                    return null;
+                }
+                // 寫回期間又被改過的留給下一輪，比對基準換成剛寫入的數量
+                return new PendingUpdate(cartId, current.memberId(), current.productId(),
+                        current.quantity(), update.quantity(), current.addedTime());
+            });
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.purelife.service;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.purelife.event.CatalogChangedEvent;
+import com.purelife.repository.ProductRepository;
+import com.purelife.repository.projection.CategoryCount;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 分類索引：分類名稱 → 上架商品數
+ * 啟動時用 GROUP BY 載入一次，之後依商品異動事件增量加減，查詢分類選單不再掃商品表。
+ * 事件的異動前狀態是各交易自己讀的，同一商品同時被改時增量可能重複或漏算，
+ * 所以定期整份重建校正（不會一直錯下去）
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryIndex {
+
+    private static final String AVAILABLE = "available";
+
+    private final ProductRepository productRepository;
+
+    // 讀取不加鎖：每次異動都換成一份新的不可變 Map（寫入只有後台，頻率很低）
+    private volatile NavigableMap<String, Integer> counts;
+
+    /**
+     * 啟動完成後載入索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * 從資料庫重建整份索引（持有鎖期間查詢，重建中提交的異動會排在重建之後套用）
+     */
+    @Scheduled(fixedDelayString = "${catalog.category-index.rebuild-interval-ms:600000}",
+               initialDelayString = "${catalog.category-index.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        NavigableMap<String, Integer> loaded = new TreeMap<>();
+        for (CategoryCount row : productRepository.countAvailableByCategory()) {
+            loaded.put(row.category(), row.productCount());
+        }
+        counts = Collections.unmodifiableNavigableMap(loaded);
+    }
+
+    /**
+     * 取得分類 → 上架商品數（依分類名稱排序）
+     */
+    public NavigableMap<String, Integer> getCounts() {
+        NavigableMap<String, Integer> current = counts;
+        if (current == null) {
+            rebuild();
+            current = counts;
+        }
+        return current;
+    }
+
+    /**
+     * 商品異動（交易提交後）：舊分類 -1、新分類 +1
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (counts == null) {
+            return; // 尚未載入，之後第一次查詢會整份重建
+        }
+
+        NavigableMap<String, Integer> updated = new TreeMap<>(counts);
+        if (AVAILABLE.equals(event.previousStatus())) {
+            adjust(updated, event.previousCategory(), -1);
+        }
+        if (AVAILABLE.equals(event.status())) {
+            adjust(updated, event.category(), 1);
+        }
+        counts = Collections.unmodifiableNavigableMap(updated);
+    }
+
+    private void adjust(NavigableMap<String, Integer> map, String category, int delta) {
+        if (category == null || category.isEmpty()) {
+            return;
+        }
+        // 減到 0 就把分類拿掉
+        map.compute(category, (key, count) -> {
+            int next = (count != null ? count : 0) + delta;
+            return next > 0 ? next : null;
+        });
+    }
+}
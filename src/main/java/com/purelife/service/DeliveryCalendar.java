@@ -0,0 +1,164 @@
+package com.purelife.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.purelife.repository.MemberSubscriptionRepository;
+import com.purelife.repository.projection.DeliverySlot;
+
+/**
+ * 配送行事曆：依下次配送日分桶的 active 訂閱 ID
+ *
+ * 查某天（或某天以前）要出貨的訂閱只看那幾個桶，不用掃 member_subscriptions。
+ * 啟動時載入，訂閱建立 / 暫停 / 恢復 / 取消與續訂推進配送日時更新（交易提交後才套用），
+ * 並定期整份重建。行事曆是單機狀態，只適用單一實例部署；查出的 ID 仍要回資料庫確認狀態與日期。
+ */
+@Component
+public class DeliveryCalendar {
+
+    private final MemberSubscriptionRepository subscriptionRepository;
+
+    // 配送日 → 訂閱 ID（讀取不加鎖；異動與重建由 synchronized 串起來）
+    private volatile ConcurrentSkipListMap<LocalDate, Set<Integer>> buckets = new ConcurrentSkipListMap<>();
+    // 訂閱 ID → 目前所在的配送日（搬移、移除時找舊桶）
+    private volatile Map<Integer, LocalDate> dateOf = new ConcurrentHashMap<>();
+
+    // 載入完成前由呼叫端改走資料庫查詢
+    private volatile boolean loaded;
+
+    public DeliveryCalendar(MemberSubscriptionRepository subscriptionRepository) {
+        this.subscriptionRepository = subscriptionRepository;
+    }
+
+    /**
+     * 啟動完成後載入
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+        System.out.println("配送行事曆已載入：" + dateOf.size() + " 筆訂閱");
+    }
+
+    /**
+     * 從資料庫整份重建（持有鎖期間查詢，重建中提交的異動會排在重建之後套用）
+     */
+    @Scheduled(fixedDelayString = "${subscription.calendar.rebuild-interval-ms:3600000}",
+               initialDelayString = "${subscription.calendar.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        ConcurrentSkipListMap<LocalDate, Set<Integer>> rebuiltBuckets = new ConcurrentSkipListMap<>();
+        Map<Integer, LocalDate> rebuiltDates = new ConcurrentHashMap<>();
+        for (DeliverySlot slot : subscriptionRepository.findActiveDeliverySlots()) {
+            rebuiltBuckets.computeIfAbsent(slot.nextDeliveryDate(), d -> ConcurrentHashMap.newKeySet())
+                    .add(slot.subscriptionId());
+            rebuiltDates.put(slot.subscriptionId(), slot.nextDeliveryDate());
+        }
+        buckets = rebuiltBuckets;
+        dateOf = rebuiltDates;
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 訂閱排入（或改到）某個配送日
+     */
+    public void schedule(Integer subscriptionId, LocalDate deliveryDate) {
+        afterCommit(() -> move(subscriptionId, deliveryDate));
+    }
+
+    /**
+     * 訂閱移出行事曆（暫停、取消）
+     */
+    public void unschedule(Integer subscriptionId) {
+        afterCommit(() -> move(subscriptionId, null));
+    }
+
+    /**
+     * 配送日在 date（含）以前、ID 大於 afterId 的訂閱，依 ID 排序
+     */
+    public List<Integer> dueThrough(LocalDate date, int afterId) {
+        List<Integer> ids = new ArrayList<>();
+        for (Set<Integer> bucket : buckets.headMap(date, true).values()) {
+            for (Integer id : bucket) {
+                if (id > afterId) {
+                    ids.add(id);
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * 某一天要出貨的訂閱，依 ID 排序
+     */
+    public List<Integer> dueOn(LocalDate date) {
+        Set<Integer> bucket = buckets.get(date);
+        List<Integer> ids = bucket != null ? new ArrayList<>(bucket) : new ArrayList<>();
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * 區間內（含頭尾）每天要出貨的筆數
+     */
+    public NavigableMap<LocalDate, Integer> countBetween(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Integer> counts = new TreeMap<>();
+        for (Map.Entry<LocalDate, Set<Integer>> entry : buckets.subMap(from, true, to, true).entrySet()) {
+            int size = entry.getValue().size();
+            if (size > 0) {
+                counts.put(entry.getKey(), size);
+            }
+        }
+        return counts;
+    }
+
+    // ===== 內部方法 =====
+
+    private synchronized void move(Integer subscriptionId, LocalDate deliveryDate) {
+        LocalDate previous = deliveryDate != null
+                ? dateOf.put(subscriptionId, deliveryDate)
+                : dateOf.remove(subscriptionId);
+        if (previous != null && !previous.equals(deliveryDate)) {
+            Set<Integer> bucket = buckets.get(previous);
+            if (bucket != null) {
+                bucket.remove(subscriptionId);
+                if (bucket.isEmpty()) {
+                    buckets.remove(previous);
+                }
+            }
+        }
+        if (deliveryDate != null) {
+            buckets.computeIfAbsent(deliveryDate, d -> ConcurrentHashMap.newKeySet()).add(subscriptionId);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.purelife.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.purelife.repository.MemberRepository;
+import com.purelife.util.BloomFilter;
+
+/**
+ * 已註冊 Email 的布隆過濾器
+ * 「一定不存在」直接回答，不查資料庫；「可能存在」才交給 existsByEmail 確認
+ * 啟動時載入，註冊時加入，定期整份重建（會員數成長後維持誤判率）
+ */
+@Component
+public class EmailRegistry {
+
+    private final MemberRepository memberRepository;
+    private final double falsePositiveRate;
+
+    // 尚未載入前為 null，一律回答「可能存在」
+    private volatile BloomFilter filter;
+    // 重建期間新註冊的 Email，重建完補進新的過濾器
+    private volatile Set<String> addedDuringRebuild;
+
+    public EmailRegistry(MemberRepository memberRepository,
+                         @Value("${member.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.memberRepository = memberRepository;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * 啟動完成後載入
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * 從資料庫整份重建（預留兩倍空間給之後的註冊）
+     */
+    @Scheduled(fixedDelayString = "${member.email-filter.rebuild-interval-ms:21600000}",
+               initialDelayString = "${member.email-filter.rebuild-interval-ms:21600000}")
+    public synchronized void rebuild() {
+        Set<String> added = ConcurrentHashMap.newKeySet();
+        addedDuringRebuild = added;
+
+        List<String> emails = memberRepository.findAllEmails();
+        BloomFilter rebuilt = new BloomFilter(Math.max(10_000, emails.size() * 2L), falsePositiveRate);
+        emails.forEach(email -> rebuilt.put(normalize(email)));
+
+        added.forEach(rebuilt::put);
+        filter = rebuilt;
+        addedDuringRebuild = null;
+        added.forEach(rebuilt::put); // 交換前一刻才加入的
+    }
+
+    /**
+     * 新註冊的 Email（交易提交後才加入：提交前開始的重建查不到這筆，要靠之後的加入補上）
+     */
+    public void add(String email) {
+        String normalized = normalize(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(normalized);
+                }
+            });
+        } else {
+            put(normalized);
+        }
+    }
+
+    private void put(String normalized) {
+        Set<String> added = addedDuringRebuild;
+        if (added != null) {
+            added.add(normalized);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(normalized);
+        }
+    }
+
+    /**
+     * Email 是否已被使用：過濾器說不存在就不查資料庫
+     */
+    public boolean isTaken(String email) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(normalize(email))) {
+            return false;
+        }
+        return memberRepository.existsByEmail(email);
+    }
+
+    private String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,178 @@
+package com.purelife.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.purelife.exception.BusinessException;
+
+/**
+ * 後台資料匯出服務
+ * 用 MySQL 串流結果集逐筆讀取，讀一筆寫一筆到輸出串流，不把整份結果放進記憶體
+ * 串流只設定在匯出專用的 JdbcTemplate 上（fetch size = Integer.MIN_VALUE），連線 URL 與其他查詢不受影響
+ */
+@Service
+public class ExportService {
+
+    // 會員匯出不含密碼欄位
+    private static final String ORDERS_SQL =
+            "SELECT order_id, order_number, member_id, order_status, payment_status, total_amount, shipping_fee, " +
+            "recipient_name, recipient_phone, recipient_address, payment_method, order_time, shipping_time " +
+            "FROM orders ORDER BY order_id";
+
+    private static final String MEMBERS_SQL =
+            "SELECT member_id, account, name, email, phone, member_level, registration_time, is_active " +
+            "FROM members ORDER BY member_id";
+
+    private static final String SUBSCRIPTIONS_SQL =
+            "SELECT subscription_id, member_id, plan_id, quantity, subscription_status, next_delivery_date, " +
+            "start_date, end_date, recipient_name, recipient_phone, recipient_address, payment_method, created_at " +
+            "FROM member_subscriptions ORDER BY subscription_id";
+
+    // Excel 開啟 UTF-8 CSV 需要 BOM，否則中文會變亂碼
+    private static final String UTF8_BOM = "\uFEFF";
+
+    /**
+     * 匯出格式
+     */
+    public enum ExportFormat {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson; charset=UTF-8", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat from(String format) {
+            for (ExportFormat value : values()) {
+                if (value.extension.equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new BusinessException("不支援的匯出格式：" + format);
+        }
+    }
+
+    // MySQL Connector/J：單向唯讀 statement 的 fetch size 設成 Integer.MIN_VALUE 就會逐筆串流
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final JdbcTemplate exportJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(DataSource dataSource, ObjectMapper objectMapper) {
+        // 匯出專用的 JdbcTemplate，不影響其他查詢的 fetch size
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(MYSQL_STREAMING_FETCH_SIZE);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 匯出所有訂單
+     */
+    public void exportOrders(ExportFormat format, OutputStream out) throws IOException {
+        export(ORDERS_SQL, format, out);
+    }
+
+    /**
+     * 匯出所有會員
+     */
+    public void exportMembers(ExportFormat format, OutputStream out) throws IOException {
+        export(MEMBERS_SQL, format, out);
+    }
+
+    /**
+     * 匯出所有訂閱
+     */
+    public void exportSubscriptions(ExportFormat format, OutputStream out) throws IOException {
+        export(SUBSCRIPTIONS_SQL, format, out);
+    }
+
+    private void export(String sql, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            exportJdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> {
+                try {
+                    writeRows(rs, format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRows(ResultSet rs, ExportFormat format, Writer writer) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        if (format == ExportFormat.CSV) {
+            writer.write(UTF8_BOM);
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writer.write(escapeCsv(metaData.getColumnLabel(i)));
+            }
+            writer.write("\r\n");
+        }
+
+        while (rs.next()) {
+            if (format == ExportFormat.CSV) {
+                for (int i = 1; i <= columnCount; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+                    Object value = rs.getObject(i);
+                    writer.write(value != null ? escapeCsv(value.toString()) : "");
+                }
+                writer.write("\r\n");
+            } else {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 1; i <= columnCount; i++) {
+                    row.put(metaData.getColumnLabel(i), rs.getObject(i));
+                }
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+        }
+    }
+
+    // 含逗號、雙引號、換行的欄位要用雙引號包起來，內部雙引號變成兩個
+    private String escapeCsv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
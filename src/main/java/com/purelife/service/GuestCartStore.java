@@ -0,0 +1,91 @@
+package com.purelife.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.purelife.exception.BusinessException;
+
+/**
+ * 訪客購物車：只放在本機記憶體（商品 ID → 數量），不寫 carts 表
+ * 有購物車數量上限與閒置過期時間，會員登入時合併進 carts 後移除
+ */
+@Component
+public class GuestCartStore {
+
+    private final Cache<String, Map<Integer, Integer>> carts;
+    private final Duration ttl;
+    private final int maxItems;
+
+    public GuestCartStore(@Value("${guest.cart.max-carts:10000}") long maxCarts,
+                          @Value("${guest.cart.ttl-minutes:1440}") long ttlMinutes,
+                          @Value("${guest.cart.max-items:50}") int maxItems) {
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.maxItems = maxItems;
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    /**
+     * 購物車閒置多久後過期（cookie 的有效期限也用這個）
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * 取得購物車內容（複本，依加入順序）
+     */
+    public Map<Integer, Integer> getItems(String guestCartId) {
+        Map<Integer, Integer> items = guestCartId != null ? carts.getIfPresent(guestCartId) : null;
+        if (items == null) {
+            return Collections.emptyMap();
+        }
+        synchronized (items) {
+            return new LinkedHashMap<>(items);
+        }
+    }
+
+    /**
+     * 設定商品數量（不存在就新增）
+     */
+    public void setQuantity(String guestCartId, Integer productId, int quantity) {
+        Map<Integer, Integer> items = carts.get(guestCartId, id -> new LinkedHashMap<>());
+        synchronized (items) {
+            if (!items.containsKey(productId) && items.size() >= maxItems) {
+                throw new BusinessException("購物車商品數量已達上限");
+            }
+            items.put(productId, quantity);
+        }
+    }
+
+    /**
+     * 移除商品
+     */
+    public boolean remove(String guestCartId, Integer productId) {
+        Map<Integer, Integer> items = guestCartId != null ? carts.getIfPresent(guestCartId) : null;
+        if (items == null) {
+            return false;
+        }
+        synchronized (items) {
+            return items.remove(productId) != null;
+        }
+    }
+
+    /**
+     * 清空購物車
+     */
+    public void clear(String guestCartId) {
+        if (guestCartId != null) {
+            carts.invalidate(guestCartId);
+        }
+    }
+}
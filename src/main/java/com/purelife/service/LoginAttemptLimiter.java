@@ -0,0 +1,146 @@
+package com.purelife.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.purelife.exception.TooManyRequestsException;
+
+/**
+ * 登入失敗次數限制：依 Email 與來源 IP 各自計算時間窗內的失敗次數，超過就直接拒絕，
+ * 不查資料庫也不算雜湊。計數器是無鎖的滑動時間窗（切成多個時間格，近似值即可）。
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    // 時間窗切成幾格
+    private static final int BUCKETS = 10;
+
+    private final Cache<String, SlidingWindowCounter> counters;
+    private final long bucketMillis;
+    private final int maxFailuresPerEmail;
+    private final int maxFailuresPerIp;
+
+    // 統計（給後台監控）
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+
+    public LoginAttemptLimiter(@Value("${login.limit.window-minutes:15}") long windowMinutes,
+                               @Value("${login.limit.max-failures-per-email:5}") int maxFailuresPerEmail,
+                               @Value("${login.limit.max-failures-per-ip:50}") int maxFailuresPerIp,
+                               @Value("${login.limit.max-keys:100000}") long maxKeys) {
+        Duration window = Duration.ofMinutes(windowMinutes);
+        this.bucketMillis = Math.max(1, window.toMillis() / BUCKETS);
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(window)
+                .build();
+    }
+
+    /**
+     * 登入前檢查：這個 Email 或 IP 失敗太多次就拒絕
+     */
+    public void checkAllowed(String email, String clientIp) {
+        attempts.increment();
+        long bucket = currentBucket();
+        if (count(emailKey(email), bucket) >= maxFailuresPerEmail
+                || count(ipKey(clientIp), bucket) >= maxFailuresPerIp) {
+            blocked.increment();
+            throw new TooManyRequestsException("登入失敗次數過多，請稍後再試");
+        }
+    }
+
+    /**
+     * 登入失敗：Email 與 IP 各加一次
+     */
+    public void recordFailure(String email, String clientIp) {
+        failures.increment();
+        long bucket = currentBucket();
+        counters.get(emailKey(email), key -> new SlidingWindowCounter()).increment(bucket);
+        if (clientIp != null) {
+            counters.get(ipKey(clientIp), key -> new SlidingWindowCounter()).increment(bucket);
+        }
+    }
+
+    /**
+     * 登入成功：清掉這個 Email 的失敗紀錄（IP 的不清，避免用一個正常帳號洗掉撞庫紀錄）
+     */
+    public void recordSuccess(String email) {
+        successes.increment();
+        counters.invalidate(emailKey(email));
+    }
+
+    /**
+     * 目前統計
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("attempts", attempts.sum());
+        metrics.put("blocked", blocked.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("successes", successes.sum());
+        metrics.put("trackedKeys", counters.estimatedSize());
+        return metrics;
+    }
+
+    private int count(String key, long bucket) {
+        if (key == null) {
+            return 0;
+        }
+        SlidingWindowCounter counter = counters.getIfPresent(key);
+        return counter != null ? counter.sum(bucket) : 0;
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    private String emailKey(String email) {
+        return "email:" + (email != null ? email.trim().toLowerCase(Locale.ROOT) : "");
+    }
+
+    private String ipKey(String clientIp) {
+        return clientIp != null ? "ip:" + clientIp : null;
+    }
+
+    /**
+     * 無鎖滑動時間窗計數器：每格記錄所屬的時間格編號與次數，過期的格子在下次寫入時歸零
+     */
+    static final class SlidingWindowCounter {
+
+        private final AtomicLongArray bucketIds = new AtomicLongArray(BUCKETS);
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+
+        void increment(long bucket) {
+            int index = (int) (bucket % BUCKETS);
+            long seen = bucketIds.get(index);
+            if (seen != bucket && bucketIds.compareAndSet(index, seen, bucket)) {
+                counts.set(index, 0); // 這格是上一輪的舊資料，重新計數
+            }
+            counts.incrementAndGet(index);
+        }
+
+        int sum(long bucket) {
+            int total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (bucket - bucketIds.get(i) < BUCKETS) {
+                    total += counts.get(i);
+                }
+            }
+            return total;
+        }
+    }
+}
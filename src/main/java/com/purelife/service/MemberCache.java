@@ -0,0 +1,89 @@
+package com.purelife.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.purelife.entity.Member;
+import com.purelife.repository.MemberRepository;
+
+/**
+ * 會員資料快取：同一個請求內只查一次（存在 request attribute），
+ * 跨請求再共用一份短時間的本機快取。
+ * 取得的 Member 只能讀，要修改請用 MemberRepository 重新查詢，存檔後呼叫 evict。
+ */
+@Component
+public class MemberCache {
+
+    private static final String REQUEST_ATTRIBUTE_PREFIX = MemberCache.class.getName() + ".";
+
+    private final MemberRepository memberRepository;
+    private final Cache<Integer, Member> members;
+
+    public MemberCache(MemberRepository memberRepository,
+                       @Value("${member.cache.max-size:10000}") long maxSize,
+                       @Value("${member.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.memberRepository = memberRepository;
+        this.members = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * 取得會員（請求內 → 共用快取 → 資料庫）
+     */
+    public Optional<Member> get(Integer memberId) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        String attributeName = REQUEST_ATTRIBUTE_PREFIX + memberId;
+        if (request != null) {
+            Object memo = request.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+            if (memo instanceof Member member) {
+                return Optional.of(member);
+            }
+        }
+
+        Member member = members.getIfPresent(memberId);
+        if (member == null) {
+            member = memberRepository.findById(memberId).orElse(null);
+            if (member == null) {
+                return Optional.empty();
+            }
+            members.put(memberId, member);
+        }
+
+        if (request != null) {
+            request.setAttribute(attributeName, member, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.of(member);
+    }
+
+    /**
+     * 會員資料異動後清除（在交易中呼叫時，提交後才清除，避免交易中途被讀回舊資料）
+     */
+    public void evict(Integer memberId) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(REQUEST_ATTRIBUTE_PREFIX + memberId, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    members.invalidate(memberId);
+                }
+            });
+        } else {
+            members.invalidate(memberId);
+        }
+    }
+}
@@ -8,7 +8,6 @@ import com.purelife.controller.dto.request.UpdateMemberRequest;
 import com.purelife.controller.dto.response.MemberResponse;
 import com.purelife.entity.Member;
 import com.purelife.repository.MemberRepository;
-import com.purelife.util.PasswordUtil;
 
 import lombok.RequiredArgsConstructor;
 
@@ -17,13 +16,15 @@ import lombok.RequiredArgsConstructor;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberCache memberCache;
+    private final PasswordHashingService passwordHashingService;
     // 不需要 PasswordEncoder 了
 
     /**
      * 取得會員資料
      */
     public MemberResponse getMemberInfo(Integer memberId) {
-        Member member = memberRepository.findById(memberId)
+        Member member = memberCache.get(memberId)
                 .orElseThrow(() -> new RuntimeException("會員不存在"));
 
         return convertToResponse(member);
@@ -44,6 +45,7 @@ public class MemberService {
         }
 
         Member saved = memberRepository.save(member);
+        memberCache.evict(memberId);
         return convertToResponse(saved);
     }
 
@@ -61,22 +63,15 @@ public class MemberService {
         Member member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new RuntimeException("會員不存在"));
 
-        // 3. 驗證目前密碼（用你的 PasswordUtil）
-        String[] parts = member.getPasswordHash().split(":");
-        String salt = parts[0];
-        String storedHash = parts[1];
-        
-        if (!PasswordUtil.verifyPassword(request.getCurrentPassword(), salt, storedHash)) {
+        // 3. 驗證目前密碼（舊格式 salt:hash 也能驗證）
+        if (!passwordHashingService.matches(request.getCurrentPassword(), member.getPasswordHash())) {
             throw new RuntimeException("目前密碼錯誤");
         }
 
-        // 4. 產生新的 salt 並加密新密碼
-        String newSalt = PasswordUtil.generateSalt();
-        String newHashedPassword = PasswordUtil.hashPassword(request.getNewPassword(), newSalt);
-        
-        // 5. 更新密碼（格式：salt:hash）
-        member.setPasswordHash(newSalt + ":" + newHashedPassword);
+        // 4. 加密新密碼並更新（格式：演算法代號:參數:salt:hash）
+        member.setPasswordHash(passwordHashingService.hash(request.getNewPassword()));
         memberRepository.save(member);
+        memberCache.evict(memberId);
     }
 
     /**
@@ -3,22 +3,31 @@ package com.purelife.service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.purelife.controller.dto.request.CreateOrderRequest;
 import com.purelife.controller.dto.response.CartItemResponse;
+import com.purelife.controller.dto.response.CursorPage;
 import com.purelife.controller.dto.response.OrderResponse;
 import com.purelife.entity.Order;
 import com.purelife.entity.OrderItem;
-import com.purelife.entity.Product;
 import com.purelife.repository.OrderItemRepository;
 import com.purelife.repository.OrderRepository;
+import com.purelife.exception.InsufficientStockException;
 import com.purelife.repository.ProductRepository;
+import com.purelife.repository.ProductRepositoryCustom.StockReservation;
+import com.purelife.repository.projection.OrderItemDetail;
+import com.purelife.util.CursorUtil;
 
 import lombok.Builder;
 import lombok.Data;
@@ -34,17 +43,23 @@ public class OrderService {
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final CartService cartService;
+    // 記憶體庫存帳本（stock.ledger.enabled=true 才有）
+    private final ObjectProvider<StockLedger> stockLedgerProvider;
 
     // 運費門檻
     private static final BigDecimal FREE_SHIPPING_THRESHOLD = new BigDecimal("1200");
     private static final BigDecimal SHIPPING_FEE = new BigDecimal("60");
 
+    // 一次 IN 查詢最多帶幾個訂單 ID
+    private static final int ORDER_ID_BATCH_SIZE = 500;
+
     /**
      * 建立訂單
      */
     @Transactional
     public OrderResponse createOrder(Integer memberId, CreateOrderRequest request) {
-        // 1. 取得購物車內容
+        // 1. 取得購物車內容（先寫回還在緩衝中的數量）
+        cartService.flushPendingUpdates(memberId);
         List<CartItemResponse> cartItems = cartService.getCartItems(memberId);
 
         if (cartItems.isEmpty()) {
@@ -79,7 +94,8 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
 
-        // 5. 建立訂單明細
+        // 5. 建立訂單明細（批次寫入，一次來回）
+        List<OrderItem> orderItems = new ArrayList<>();
         for (CartItemResponse cartItem : cartItems) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrderId(savedOrder.getOrderId());
@@ -87,14 +103,17 @@ public class OrderService {
             orderItem.setQuantity(cartItem.getQuantity());
             orderItem.setUnitPrice(cartItem.getActualPrice());
             orderItem.setSubtotal(cartItem.getSubtotal());
-
-            orderItemRepository.save(orderItem);
+            orderItems.add(orderItem);
         }
+        orderItemRepository.batchInsert(orderItems);
+
+        // 6. 扣庫存（放在交易最後，行鎖只持有到提交為止）
+        reserveStock(cartItems);
 
-        // 6. 清空購物車
+        // 7. 清空購物車
         cartService.clearCart(memberId);
 
-        // 7. 回傳訂單資訊
+        // 8. 回傳訂單資訊
         return convertToResponse(savedOrder);
     }
 
@@ -103,10 +122,27 @@ public class OrderService {
      */
     public List<OrderResponse> getOrders(Integer memberId) {
         List<Order> orders = orderRepository.findByMemberIdOrderByOrderTimeDesc(memberId);
+        return convertToResponses(orders);
+    }
 
-        return orders.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    /**
+     * 取得會員的訂單分頁（依下單時間新到舊，游標為上一頁最後一筆的 order_time + order_id）
+     */
+    public CursorPage<OrderResponse> getOrdersPage(Integer memberId, String after, Integer limit) {
+        int pageSize = CursorUtil.normalizeLimit(limit);
+
+        List<Order> orders;
+        if (after != null && !after.isBlank()) {
+            CursorUtil.OrderCursor cursor = CursorUtil.decodeOrderCursor(after);
+            orders = orderRepository.findByMemberIdPageBefore(
+                    memberId, cursor.orderTime(), cursor.orderId(), pageSize + 1);
+        } else {
+            orders = orderRepository.findByMemberIdPage(memberId, pageSize + 1);
+        }
+
+        List<OrderResponse> responses = convertToResponses(orders);
+        return CursorUtil.toPage(responses, pageSize,
+                order -> CursorUtil.encodeOrderCursor(order.getOrderTime(), order.getOrderId()));
     }
 
     /**
@@ -119,6 +155,46 @@ public class OrderService {
         return convertToResponse(order);
     }
 
+    /**
+     * 扣庫存：條件式 UPDATE 批次送出，任何一筆不足就整筆訂單 rollback 並回報不足的商品
+     * 有啟用庫存帳本時改在記憶體扣減，交易提交後由帳本批次回寫
+     */
+    private void reserveStock(List<CartItemResponse> cartItems) {
+        // 依商品 ID 排序，多筆訂單同時結帳時鎖定順序一致，避免死結
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        Map<Integer, String> productNames = new TreeMap<>();
+        for (CartItemResponse cartItem : cartItems) {
+            quantities.merge(cartItem.getProductId(), cartItem.getQuantity(), Integer::sum);
+            productNames.put(cartItem.getProductId(), cartItem.getProductName());
+        }
+
+        List<StockReservation> reservations = quantities.entrySet().stream()
+                .map(entry -> new StockReservation(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+
+        StockLedger stockLedger = stockLedgerProvider.getIfAvailable();
+        List<Integer> failedProductIds;
+        if (stockLedger != null) {
+            // 帳本不看上架狀態，先排除已下架的商品
+            failedProductIds = cartItems.stream()
+                    .filter(item -> !"available".equals(item.getProductStatus()))
+                    .map(CartItemResponse::getProductId)
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (failedProductIds.isEmpty()) {
+                failedProductIds = stockLedger.reserve(reservations);
+            }
+        } else {
+            failedProductIds = productRepository.reserveStock(reservations);
+        }
+        if (!failedProductIds.isEmpty()) {
+            String names = failedProductIds.stream()
+                    .map(productNames::get)
+                    .collect(Collectors.joining("、"));
+            throw new InsufficientStockException("庫存不足：" + names, failedProductIds);
+        }
+    }
+
     /**
      * 產生訂單編號：PL + 日期 + 隨機碼
      */
@@ -129,28 +205,52 @@ public class OrderService {
     }
 
     /**
-     * 轉換為回傳 DTO
+     * 轉換為回傳 DTO（單筆）
      */
     private OrderResponse convertToResponse(Order order) {
-        // 取得訂單明細
-        List<OrderItem> items = orderItemRepository.findByOrderId(order.getOrderId());
-
-        List<OrderResponse.OrderItemResponse> itemResponses = items.stream().map(item -> {
-            // 取得商品名稱
-            String productName = productRepository.findById(item.getProductId())
-                    .map(Product::getProductName)
-                    .orElse("未知商品");
-
-            return OrderResponse.OrderItemResponse.builder()
-                    .productId(item.getProductId())
-                    .productName(productName)
-                    .specInfo(item.getSpecInfo())
-                    .quantity(item.getQuantity())
-                    .unitPrice(item.getUnitPrice())
-                    .subtotal(item.getSubtotal())
-                    .build();
-        }).collect(Collectors.toList());
+        return convertToResponses(List.of(order)).get(0);
+    }
+
+    /**
+     * 轉換為回傳 DTO（多筆）：訂單明細與商品名稱用 IN 批次 JOIN 查詢，不再每筆訂單、每個商品各查一次
+     */
+    private List<OrderResponse> convertToResponses(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> orderIds = orders.stream()
+                .map(Order::getOrderId)
+                .collect(Collectors.toList());
+
+        List<OrderItemDetail> details = new ArrayList<>();
+        for (int from = 0; from < orderIds.size(); from += ORDER_ID_BATCH_SIZE) {
+            List<Integer> batch = orderIds.subList(from, Math.min(from + ORDER_ID_BATCH_SIZE, orderIds.size()));
+            details.addAll(orderItemRepository.findDetailsByOrderIdIn(batch));
+        }
+
+        Map<Integer, List<OrderResponse.OrderItemResponse>> itemsByOrderId = details.stream()
+                .collect(Collectors.groupingBy(OrderItemDetail::orderId,
+                        Collectors.mapping(this::convertItemToResponse, Collectors.toList())));
+
+        return orders.stream()
+                .map(order -> convertToResponse(order,
+                        itemsByOrderId.getOrDefault(order.getOrderId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    private OrderResponse.OrderItemResponse convertItemToResponse(OrderItemDetail item) {
+        return OrderResponse.OrderItemResponse.builder()
+                .productId(item.productId())
+                .productName(item.productName() != null ? item.productName() : "未知商品")
+                .specInfo(item.specInfo())
+                .quantity(item.quantity())
+                .unitPrice(item.unitPrice())
+                .subtotal(item.subtotal())
+                .build();
+    }
 
+    private OrderResponse convertToResponse(Order order, List<OrderResponse.OrderItemResponse> itemResponses) {
         BigDecimal grandTotal = order.getTotalAmount().add(order.getShippingFee());
 
         return OrderResponse.builder()
@@ -170,4 +270,4 @@ public class OrderService {
                 .items(itemResponses)
                 .build();
     }
-}
\ No newline at end of file
+}
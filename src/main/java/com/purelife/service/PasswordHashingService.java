@@ -0,0 +1,140 @@
+package com.purelife.service;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.purelife.exception.ServiceBusyException;
+import com.purelife.util.BCryptPasswordHasher;
+import com.purelife.util.PasswordHasher;
+import com.purelife.util.PasswordUtil;
+import com.purelife.util.Pbkdf2PasswordHasher;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 密碼雜湊服務
+ * 新密碼用設定的演算法（password.hash.algorithm）雜湊，驗證時依儲存字串的代號選擇演算法，舊格式 salt:hash 也能驗證；
+ * 雜湊運算放在固定大小的專用執行緒池，排隊滿了直接回「系統忙碌」，登入尖峰不會吃光 CPU 與請求執行緒
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordHasher current;
+    private final Map<String, PasswordHasher> hashers;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    public PasswordHashingService(@Value("${password.hash.algorithm:pbkdf2}") String algorithm,
+                                  @Value("${password.hash.pbkdf2-iterations:310000}") int pbkdf2Iterations,
+                                  @Value("${password.hash.bcrypt-strength:10}") int bcryptStrength,
+                                  @Value("${password.hash.threads:0}") int threads,
+                                  @Value("${password.hash.queue-capacity:64}") int queueCapacity,
+                                  @Value("${password.hash.timeout-ms:5000}") long timeoutMillis) {
+        this.hashers = Map.of(
+                Pbkdf2PasswordHasher.ID, new Pbkdf2PasswordHasher(pbkdf2Iterations),
+                BCryptPasswordHasher.ID, new BCryptPasswordHasher(bcryptStrength));
+        this.current = hashers.get(algorithm);
+        if (current == null) {
+            throw new IllegalArgumentException("不支援的密碼雜湊演算法：" + algorithm);
+        }
+
+        // 沒設定就用 CPU 核心數
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 雜湊新密碼（註冊、修改密碼、登入後升級）
+     */
+    public String hash(String password) {
+        return run(() -> current.hash(password));
+    }
+
+    /**
+     * 驗證密碼（支援所有已知格式）
+     */
+    public boolean matches(String password, String storedPassword) {
+        if (storedPassword == null) {
+            return false;
+        }
+        return run(() -> verify(password, storedPassword));
+    }
+
+    /**
+     * 儲存字串不是目前的演算法或成本時，登入成功後要重新雜湊
+     */
+    public boolean needsRehash(String storedPassword) {
+        if (hasherOf(storedPassword) != current) {
+            return true; // 舊格式或其他演算法
+        }
+        return current.needsRehash(storedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // 先依演算法代號找新格式，都不是才當作舊格式
+    private boolean verify(String password, String storedPassword) {
+        PasswordHasher hasher = hasherOf(storedPassword);
+        if (hasher != null) {
+            return hasher.verify(password, storedPassword);
+        }
+        return PasswordUtil.isLegacyFormat(storedPassword)
+                && PasswordUtil.verifyLegacy(password, storedPassword);
+    }
+
+    // 儲存字串開頭的演算法代號對應的 hasher（不是新格式回傳 null）
+    private PasswordHasher hasherOf(String storedPassword) {
+        int separator = storedPassword.indexOf(':');
+        if (separator < 0) {
+            return null;
+        }
+        return hashers.get(storedPassword.substring(0, separator));
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("系統忙碌中，請稍後再試");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("系統忙碌中，請稍後再試");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("系統忙碌中，請稍後再試");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("密碼驗證失敗", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.purelife.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.purelife.controller.dto.response.SubscriptionPlanResponse;
+import com.purelife.entity.Product;
+import com.purelife.entity.SubscriptionPlan;
+import com.purelife.event.CatalogChangedEvent;
+import com.purelife.repository.ProductRepository;
+import com.purelife.repository.SubscriptionPlanRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 訂閱方案價格表：planId → 方案、商品摘要、原價、訂閱價、週期文字
+ * 啟動時載入，商品異動事件（含方案變更，方案只會跟著商品一起改）時重建該商品的方案，
+ * 訂閱列表不用每筆再查方案與商品、重算價格
+ */
+@Component
+@RequiredArgsConstructor
+public class PlanPriceTable {
+
+    /**
+     * 方案與計價結果（不可變）
+     */
+    public record PlanPrice(Integer planId, Integer productId, String cycleType, Integer cycleDays,
+                            BigDecimal discountRate, String productName, String category,
+                            BigDecimal basePrice, BigDecimal subscriptionPrice, String cycleText) {
+
+        public SubscriptionPlanResponse toPlanResponse() {
+            return SubscriptionPlanResponse.builder()
+                    .planId(planId)
+                    .productId(productId)
+                    .cycleType(cycleType)
+                    .cycleDays(cycleDays)
+                    .discountRate(discountRate)
+                    .cycleText(cycleText)
+                    .originalPrice(basePrice)
+                    .subscriptionPrice(subscriptionPrice)
+                    .build();
+        }
+    }
+
+    private final SubscriptionPlanRepository planRepository;
+    private final ProductRepository productRepository;
+
+    // 讀取不加鎖：每次異動都換成新的不可變 Map（寫入只有後台改商品，頻率很低）
+    private volatile Map<Integer, PlanPrice> byPlan;
+    private volatile Map<Integer, List<PlanPrice>> byProduct;
+
+    /**
+     * 啟動完成後載入
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * 從資料庫重建整份價格表
+     */
+    public synchronized void rebuild() {
+        List<SubscriptionPlan> plans = new ArrayList<>();
+        planRepository.findAll().forEach(plans::add);
+
+        Map<Integer, Product> products = new HashMap<>();
+        productRepository.findAllById(plans.stream().map(SubscriptionPlan::getProductId).distinct()
+                        .collect(Collectors.toList()))
+                .forEach(product -> products.put(product.getProductId(), product));
+
+        Map<Integer, PlanPrice> loaded = new HashMap<>();
+        for (SubscriptionPlan plan : plans) {
+            Product product = products.get(plan.getProductId());
+            if (product != null) {
+                loaded.put(plan.getPlanId(), toPlanPrice(plan, product));
+            }
+        }
+        publish(loaded);
+    }
+
+    /**
+     * 取得方案價格（表中沒有時查資料庫，例如剛新增、事件還沒處理到）
+     */
+    public Optional<PlanPrice> get(Integer planId) {
+        Map<Integer, PlanPrice> current = byPlan;
+        PlanPrice price = current != null ? current.get(planId) : null;
+        if (price != null) {
+            return Optional.of(price);
+        }
+        return planRepository.findById(planId)
+                .flatMap(plan -> productRepository.findById(plan.getProductId())
+                        .map(product -> toPlanPrice(plan, product)));
+    }
+
+    /**
+     * 取得商品的所有方案價格（尚未載入時查資料庫）
+     */
+    public List<PlanPrice> getByProductId(Integer productId) {
+        Map<Integer, List<PlanPrice>> current = byProduct;
+        if (current != null) {
+            return current.getOrDefault(productId, List.of());
+        }
+        return loadProduct(productId);
+    }
+
+    /**
+     * 商品異動（交易提交後）：重建該商品的方案價格
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (byPlan == null) {
+            return; // 尚未載入，載入時會是最新的
+        }
+
+        Map<Integer, PlanPrice> updated = new HashMap<>(byPlan);
+        updated.values().removeIf(price -> price.productId().equals(event.productId()));
+        for (PlanPrice price : loadProduct(event.productId())) {
+            updated.put(price.planId(), price);
+        }
+        publish(updated);
+    }
+
+    /**
+     * 訂閱價：原價 × 折扣比例，無條件捨去到整數
+     */
+    public static BigDecimal calculateSubscriptionPrice(BigDecimal originalPrice, BigDecimal discountRate) {
+        if (discountRate == null) {
+            return originalPrice;
+        }
+        // 直接乘就好：原價 × 0.95 = 95折價格
+        return originalPrice.multiply(discountRate).setScale(0, RoundingMode.FLOOR);
+    }
+
+    /**
+     * 週期顯示文字
+     */
+    public static String getCycleText(String cycleType) {
+        switch (cycleType) {
+            case "monthly":
+                return "每月配送";
+            case "quarterly":
+                return "每三個月配送";
+            case "biannual":
+                return "每六個月配送";
+            default:
+                return cycleType;
+        }
+    }
+
+    // ===== 內部方法 =====
+
+    private List<PlanPrice> loadProduct(Integer productId) {
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty()) {
+            return List.of();
+        }
+        return planRepository.findByProductId(productId).stream()
+                .map(plan -> toPlanPrice(plan, product.get()))
+                .collect(Collectors.toList());
+    }
+
+    private void publish(Map<Integer, PlanPrice> prices) {
+        Map<Integer, List<PlanPrice>> grouped = prices.values().stream()
+                .sorted(Comparator.comparing(PlanPrice::planId))
+                .collect(Collectors.groupingBy(PlanPrice::productId,
+                        Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)));
+        byProduct = Collections.unmodifiableMap(grouped);
+        byPlan = Collections.unmodifiableMap(prices);
+    }
+
+    private PlanPrice toPlanPrice(SubscriptionPlan plan, Product product) {
+        // 實際價格：有促銷價就用促銷價
+        BigDecimal basePrice = product.getPromotionPrice() != null
+                ? product.getPromotionPrice()
+                : product.getPrice();
+        return new PlanPrice(plan.getPlanId(), plan.getProductId(), plan.getCycleType(), plan.getCycleDays(),
+                plan.getDiscountRate(), product.getProductName(), product.getCategory(),
+                basePrice, calculateSubscriptionPrice(basePrice, plan.getDiscountRate()),
+                getCycleText(plan.getCycleType()));
+    }
+}
@@ -1,16 +1,31 @@
 package com.purelife.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.purelife.config.CacheConfig;
 import com.purelife.controller.dto.request.ProductRequest;
 import com.purelife.controller.dto.request.ProductRequest.SubscriptionPlanRequest;
+import com.purelife.controller.dto.response.ApiResponse;
+import com.purelife.controller.dto.response.CategoryResponse;
+import com.purelife.controller.dto.response.CursorPage;
 import com.purelife.controller.dto.response.ProductResponse;
 import com.purelife.entity.Product;
 import com.purelife.entity.SubscriptionPlan;
+import com.purelife.event.CatalogChangedEvent;
+import com.purelife.repository.MemberSubscriptionRepository;
 import com.purelife.repository.ProductRepository;
 import com.purelife.repository.SubscriptionPlanRepository;
+import com.purelife.util.CursorUtil;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -19,8 +34,14 @@ import java.math.BigDecimal;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,12 +50,33 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final SubscriptionPlanRepository subscriptionPlanRepository;
+    private final MemberSubscriptionRepository memberSubscriptionRepository;
     private final FileUploadService fileUploadService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryIndex categoryIndex;
+
+    // 前台商品列表快照：key 為分類（"" 代表全部），value 為已序列化好的 JSON
+    private static final int MAX_CATALOG_SNAPSHOTS = 64;
+    private final AtomicLong catalogVersion = new AtomicLong(1);
+    private final Map<String, CatalogSnapshot> catalogSnapshots = new ConcurrentHashMap<>();
+
+    // 快照存活時間與目錄快取相同：結帳扣庫存不會發目錄事件，兩者的庫存最多落後一樣久
+    @Value("${catalog.cache.ttl-seconds:30}")
+    private long snapshotTtlSeconds;
+
+    /**
+     * 商品列表快照（不可變）：version 為目錄版本，eTag 由內容雜湊產生，body 為 ApiResponse JSON
+     * expiresAt 之後即使版本沒變也重建；body 由多個請求共用，呼叫端不可修改
+     */
+    public record CatalogSnapshot(long version, long expiresAt, String eTag, byte[] body) {
+    }
 
     // ===================== 查詢 =====================
     /**
      * 取得所有商品（前台用）
      */
+    @Cacheable(cacheNames = CacheConfig.CATALOG_CACHE, key = "'list:' + (#category ?: '')")
     public List<ProductResponse> getAllProducts(String category) {
         List<Product> products;
         if (category != null && !category.isBlank()) {
@@ -42,9 +84,72 @@ public class ProductService {
         } else {
             products = productRepository.findAllAvailable();  // 已過濾上架
         }
-        return products.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        // 快取中的清單由多個請求共用，回傳不可修改的版本
+        return List.copyOf(convertToResponses(products));
+    }
+
+    /**
+     * 取得上架商品分頁（前台用，依商品 ID 游標）
+     */
+    public CursorPage<ProductResponse> getProductsPage(String category, Integer after, Integer limit) {
+        int pageSize = CursorUtil.normalizeLimit(limit);
+        int afterId = CursorUtil.afterId(after);
+
+        List<Product> products;
+        if (category != null && !category.isBlank()) {
+            products = productRepository.findAvailablePageByCategory(category, afterId, pageSize + 1);
+        } else {
+            products = productRepository.findAvailablePage(afterId, pageSize + 1);
+        }
+        return CursorUtil.toPage(convertToResponses(products), pageSize,
+                product -> String.valueOf(product.getProductId()));
+    }
+
+    /**
+     * 取得前台商品列表快照（已序列化好的 JSON + ETag）
+     * 目錄版本沒變且未過期就直接回傳同一份 bytes，不查資料庫也不做 JSON 序列化
+     * 內容沒變時重建出的 ETag 相同，客戶端仍會拿到 304
+     */
+    public CatalogSnapshot getCatalogSnapshot(String category) {
+        String key = (category != null && !category.isBlank()) ? category : "";
+
+        // 先讀版本再查資料庫，重建期間若有異動，下一次請求會因版本不同再重建
+        long version = catalogVersion.get();
+        CatalogSnapshot snapshot = catalogSnapshots.get(key);
+        if (snapshot != null && snapshot.version() == version
+                && System.currentTimeMillis() < snapshot.expiresAt()) {
+            return snapshot;
+        }
+
+        CatalogSnapshot rebuilt = buildCatalogSnapshot(key, version);
+        if (catalogSnapshots.containsKey(key) || catalogSnapshots.size() < MAX_CATALOG_SNAPSHOTS) {
+            catalogSnapshots.merge(key, rebuilt,
+                    (current, candidate) -> candidate.version() > current.version()
+                            || (candidate.version() == current.version()
+                                && candidate.expiresAt() >= current.expiresAt()) ? candidate : current);
+        }
+        return rebuilt;
+    }
+
+    /**
+     * 商品異動（交易提交後）：目錄版本 +1，並先重建「全部商品」快照
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        catalogVersion.incrementAndGet();
+        catalogSnapshots.clear();
+        getCatalogSnapshot(null);
+    }
+
+    private CatalogSnapshot buildCatalogSnapshot(String category, long version) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(ApiResponse.success(getAllProducts(category)));
+            String eTag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            long expiresAt = System.currentTimeMillis() + snapshotTtlSeconds * 1000;
+            return new CatalogSnapshot(version, expiresAt, eTag, body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("商品列表序列化失敗", e);
+        }
     }
 
     /**
@@ -52,13 +157,22 @@ public class ProductService {
      */
     public List<ProductResponse> getAllProductsForAdmin() {
         List<Product> products = iterableToList(productRepository.findAllForAdmin());
-        return products.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(products);
+    }
+    /**
+     * 取得商品分頁（後台用，包含下架，依商品 ID 游標）
+     */
+    public CursorPage<ProductResponse> getProductsPageForAdmin(Integer after, Integer limit) {
+        int pageSize = CursorUtil.normalizeLimit(limit);
+        List<Product> products = productRepository.findAdminPage(CursorUtil.afterId(after), pageSize + 1);
+        return CursorUtil.toPage(convertToResponses(products), pageSize,
+                product -> String.valueOf(product.getProductId()));
     }
+
     /**
      * 根據 ID 取得商品（回傳 ProductResponse）
      */
+    @Cacheable(cacheNames = CacheConfig.CATALOG_CACHE, key = "'detail:' + #productId")
     public ProductResponse getProductById(Integer productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("找不到商品，ID: " + productId));
@@ -74,44 +188,49 @@ public class ProductService {
     }
 
     /**
-     * 取得所有分類
+     * 取得所有分類（有上架商品的分類，從分類索引讀取）
      */
     public List<String> getAllCategories() {
-        List<Product> products = iterableToList(productRepository.findAll());
-        
-        return products.stream()
-                .map(Product::getCategory)
-                .filter(category -> category != null && !category.isEmpty())
-                .distinct()
+        return new ArrayList<>(categoryIndex.getCounts().keySet());
+    }
+
+    /**
+     * 取得所有分類及各分類上架商品數
+     */
+    public List<CategoryResponse> getCategoryCounts() {
+        return categoryIndex.getCounts().entrySet().stream()
+                .map(entry -> CategoryResponse.builder()
+                        .category(entry.getKey())
+                        .productCount(entry.getValue())
+                        .build())
                 .collect(Collectors.toList());
     }
 
     /**
      * 取得新品
      */
+    @Cacheable(cacheNames = CacheConfig.CATALOG_CACHE, key = "'new'")
     public List<ProductResponse> getNewProducts() {
         List<Product> products = iterableToList(productRepository.findNewProducts());
         
-        return products.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return List.copyOf(convertToResponses(products));
     }
 
     /**
      * 取得熱銷商品（依銷售量排序）
      */
+    @Cacheable(cacheNames = CacheConfig.CATALOG_CACHE, key = "'hot'")
     public List<ProductResponse> getHotProducts() {
         List<Product> products = iterableToList(productRepository.findHotProducts());
         
-        return products.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return List.copyOf(convertToResponses(products));
     }
     // ===================== 新增 =====================
     /**
      * 新增商品（管理員用）
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_CACHE, allEntries = true)
     public Product createProduct(
         String productName,
         String category,
@@ -169,21 +288,17 @@ public class ProductService {
         // 先存商品，取得 productId
         Product savedProduct = productRepository.save(product);
 
-        // 如果有訂閱方案就存
+        // 如果有訂閱方案就存（一次批次新增）
         if (subscriptionPlans != null && !subscriptionPlans.isEmpty()) {
             List<SubscriptionPlan> plans = new ArrayList<>();
             for (SubscriptionPlanRequest planReq : subscriptionPlans) {
-                SubscriptionPlan plan = new SubscriptionPlan();
-                plan.setCycleType(planReq.getCycleType());
-                plan.setCycleDays(planReq.getCycleDays());
-                plan.setDiscountRate(planReq.getDiscountRate()!= null 
-                    ? BigDecimal.valueOf(planReq.getDiscountRate()) 
-                    : null);
-                plan.setProductId(savedProduct.getProductId()); // 綁定關聯(綁定商品ID)
-                plans.add(plan);
+                plans.add(toNewPlan(savedProduct.getProductId(), planReq)); // 綁定關聯(綁定商品ID)
             }
-            subscriptionPlanRepository.saveAll(plans);
+            subscriptionPlanRepository.batchInsert(plans);
         }
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                savedProduct.getProductId(), null, null,
+                savedProduct.getCategory(), savedProduct.getProductStatus()));
         return savedProduct;
     }
     // ===================== 更新 =====================
@@ -191,6 +306,7 @@ public class ProductService {
      * 更新商品（管理員用）
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_CACHE, allEntries = true)
     public Product updateProduct(
         Integer productId,
         String productName,
@@ -205,6 +321,8 @@ public class ProductService {
         MultipartFile file) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("找不到商品，ID: " + productId));
+        String previousCategory = product.getCategory();
+        String previousStatus = product.getProductStatus();
 
         product.setProductName(productName);
         product.setCategory(category);
@@ -237,25 +355,100 @@ public class ProductService {
         
         // 更新時間
         product.setUpdatedAt(LocalDateTime.now());
-        // 更新訂閱方案（先刪舊方案，再新增新方案）
+        // 更新訂閱方案（與現有方案比對，只寫有變動的，沒變的方案保留原 plan_id）
         if (subscriptionPlans != null) {
-            subscriptionPlanRepository.deleteByProductId(productId);
+            syncSubscriptionPlans(productId, subscriptionPlans);
+        }
 
-            List<SubscriptionPlan> plans = new ArrayList<>();
-            for (SubscriptionPlanRequest planReq : subscriptionPlans) {
-                SubscriptionPlan plan = new SubscriptionPlan();
-                plan.setCycleType(planReq.getCycleType());
-                plan.setCycleDays(planReq.getCycleDays());
-                plan.setDiscountRate(planReq.getDiscountRate() != null
-                        ? BigDecimal.valueOf(planReq.getDiscountRate())
-                        : null);
-                plan.setProductId(product.getProductId());
-                plans.add(plan);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                productId, previousCategory, previousStatus,
+                savedProduct.getCategory(), savedProduct.getProductStatus()));
+        return savedProduct;
+    }
+
+    /**
+     * 比對送來的方案與資料庫現有方案：
+     * 有 planId 且屬於此商品 → 內容不同才更新；沒有 planId → 同週期類型的現有方案視為同一個；
+     * 其餘新增，送來的清單裡沒有的現有方案刪除（還有會員訂閱中的方案不能刪）。新增、更新、刪除各一次批次
+     */
+    private void syncSubscriptionPlans(Integer productId, List<SubscriptionPlanRequest> requests) {
+        Map<Integer, SubscriptionPlan> remaining = new LinkedHashMap<>();
+        for (SubscriptionPlan plan : subscriptionPlanRepository.findByProductId(productId)) {
+            remaining.put(plan.getPlanId(), plan);
+        }
+
+        List<SubscriptionPlan> toInsert = new ArrayList<>();
+        List<SubscriptionPlan> toUpdate = new ArrayList<>();
+        for (SubscriptionPlanRequest planReq : requests) {
+            SubscriptionPlan existing = planReq.getPlanId() != null
+                    ? remaining.remove(planReq.getPlanId())
+                    : null;
+            if (existing == null && planReq.getPlanId() == null) {
+                existing = remaining.values().stream()
+                        .filter(plan -> Objects.equals(plan.getCycleType(), planReq.getCycleType()))
+                        .findFirst()
+                        .orElse(null);
+                if (existing != null) {
+                    remaining.remove(existing.getPlanId());
+                }
+            }
+
+            if (existing == null) {
+                toInsert.add(toNewPlan(productId, planReq));
+            } else if (applyPlanChanges(existing, planReq)) {
+                toUpdate.add(existing);
+            }
+        }
+
+        if (!remaining.isEmpty()) {
+            List<Integer> subscribed = memberSubscriptionRepository.findSubscribedPlanIds(remaining.keySet());
+            if (!subscribed.isEmpty()) {
+                String cycles = subscribed.stream()
+                        .map(planId -> remaining.get(planId).getCycleType())
+                        .collect(Collectors.joining("、"));
+                throw new RuntimeException("方案仍有會員訂閱中，無法刪除：" + cycles);
             }
-            subscriptionPlanRepository.saveAll(plans);
+            subscriptionPlanRepository.deleteByPlanIdIn(remaining.keySet());
         }
+        subscriptionPlanRepository.batchUpdate(toUpdate);
+        subscriptionPlanRepository.batchInsert(toInsert);
+    }
+
+    /**
+     * 把送來的內容套到現有方案上
+     * @return 是否有變動
+     */
+    private boolean applyPlanChanges(SubscriptionPlan plan, SubscriptionPlanRequest planReq) {
+        BigDecimal discountRate = toDiscountRate(planReq);
+        boolean sameDiscount = plan.getDiscountRate() == null || discountRate == null
+                ? plan.getDiscountRate() == discountRate
+                : plan.getDiscountRate().compareTo(discountRate) == 0;
+        if (Objects.equals(plan.getCycleType(), planReq.getCycleType())
+                && Objects.equals(plan.getCycleDays(), planReq.getCycleDays())
+                && sameDiscount) {
+            return false;
+        }
+        plan.setCycleType(planReq.getCycleType());
+        plan.setCycleDays(planReq.getCycleDays());
+        plan.setDiscountRate(discountRate);
+        return true;
+    }
 
-        return productRepository.save(product);
+    private SubscriptionPlan toNewPlan(Integer productId, SubscriptionPlanRequest planReq) {
+        SubscriptionPlan plan = new SubscriptionPlan();
+        plan.setCycleType(planReq.getCycleType());
+        plan.setCycleDays(planReq.getCycleDays());
+        plan.setDiscountRate(toDiscountRate(planReq));
+        plan.setProductId(productId);
+        plan.setCreatedAt(LocalDateTime.now());
+        return plan;
+    }
+
+    private BigDecimal toDiscountRate(SubscriptionPlanRequest planReq) {
+        return planReq.getDiscountRate() != null
+                ? BigDecimal.valueOf(planReq.getDiscountRate())
+                : null;
     }
 
     private void handleImageUpdate(Product product, String imageUrl, MultipartFile file) {
@@ -289,14 +482,20 @@ public class ProductService {
      * 刪除商品（管理員用）
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_CACHE, allEntries = true)
     public void deleteProduct(Integer productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("找不到商品，ID: " + productId));
         
+        String previousStatus = product.getProductStatus();
+
         // 軟刪除：改狀態而不是真的刪
         product.setProductStatus("deleted");
         product.setUpdatedAt(LocalDateTime.now());
         productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                productId, product.getCategory(), previousStatus,
+                product.getCategory(), product.getProductStatus()));
     }
 
     // ===================== 輔助方法 =====================
@@ -311,9 +510,36 @@ public class ProductService {
     }
 
     /**
-     * Entity 轉 DTO
+     * Entity 轉 DTO（單筆）
      */
     private ProductResponse convertToResponse(Product product) {
+        return convertToResponse(product, subscriptionPlanRepository.findByProductId(product.getProductId()));
+    }
+
+    /**
+     * Entity 轉 DTO（列表）：訂閱方案一次用 IN 查回來再依商品分組，不管幾筆商品都只多一次查詢
+     */
+    private List<ProductResponse> convertToResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> productIds = products.stream()
+                .map(Product::getProductId)
+                .collect(Collectors.toList());
+
+        Map<Integer, List<SubscriptionPlan>> plansByProductId = subscriptionPlanRepository
+                .findByProductIdIn(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(SubscriptionPlan::getProductId));
+
+        return products.stream()
+                .map(product -> convertToResponse(product,
+                        plansByProductId.getOrDefault(product.getProductId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    private ProductResponse convertToResponse(Product product, List<SubscriptionPlan> plans) {
         ProductResponse response = new ProductResponse();
         response.setProductId(product.getProductId());
         response.setProductName(product.getProductName());
@@ -325,7 +551,6 @@ public class ProductService {
         response.setImageUrl(product.getImageUrl());
         response.setProductStatus(product.getProductStatus());
         
-        List<SubscriptionPlan> plans = subscriptionPlanRepository.findByProductId(product.getProductId());
         if (plans != null && !plans.isEmpty()) {
             response.setSubscriptionPlans(
                 plans.stream().map(plan -> {
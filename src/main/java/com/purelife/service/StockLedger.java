@@ -0,0 +1,283 @@
+package com.purelife.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.purelife.event.CatalogChangedEvent;
+import com.purelife.repository.ProductRepository;
+import com.purelife.repository.ProductRepositoryCustom.StockReservation;
+import com.purelife.repository.projection.StockLevel;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 記憶體庫存帳本（stock.ledger.enabled=true 才啟用，搶購期間用）
+ *
+ * 每個商品一個 AtomicInteger 可售量，結帳用 CAS 扣減，不碰 products 那一列；
+ * 交易提交後扣減量累積在 pending，由排程批次回寫 stock_quantity / sales_count。
+ * 帳本是單機狀態，只適用單一實例部署；重新啟動時從資料庫重新載入（pending 會在關閉前回寫）。
+ *
+ * 不變式：可售量 = 資料庫庫存(knownStock) - 已提交未回寫(pending) - 進行中交易保留量
+ */
+@Component
+@ConditionalOnProperty(name = "stock.ledger.enabled", havingValue = "true")
+public class StockLedger {
+
+    // 回寫 / 重新載入用的分段鎖（結帳扣減不需要鎖）
+    // 重新對帳在鎖內讀資料庫；回寫持有全部分段鎖，從取出 pending、寫資料庫到扣 knownStock 中間不會插入對帳
+    private static final int STRIPES = 32;
+
+    private final ProductRepository productRepository;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    private final Map<Integer, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> knownStock = new ConcurrentHashMap<>();
+
+    public StockLedger(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 啟動完成後從資料庫載入所有商品庫存
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lockAll();
+        try {
+            for (StockLevel level : productRepository.findAllStockLevels()) {
+                apply(level);
+            }
+        } finally {
+            unlockAll();
+        }
+        System.out.println("庫存帳本已載入：" + available.size() + " 項商品");
+    }
+
+    /**
+     * 取得目前可售量（帳本沒有的商品從資料庫載入）
+     */
+    public int getAvailable(Integer productId) {
+        AtomicInteger counter = counterOf(productId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 保留庫存：全部成功才算成功，任何一項不足就退回已扣的部分
+     * 在交易中呼叫時，提交後才記入待回寫，rollback 則自動退回
+     *
+     * @return 庫存不足的商品 ID（空清單表示全部保留成功）
+     */
+    public List<Integer> reserve(List<StockReservation> reservations) {
+        List<StockReservation> reserved = new ArrayList<>();
+        List<Integer> failedProductIds = new ArrayList<>();
+
+        for (StockReservation reservation : reservations) {
+            if (tryDecrement(reservation.productId(), reservation.quantity())) {
+                reserved.add(reservation);
+            } else {
+                failedProductIds.add(reservation.productId());
+            }
+        }
+
+        if (!failedProductIds.isEmpty()) {
+            release(reserved);
+            return failedProductIds;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        commit(reserved);
+                    } else {
+                        release(reserved);
+                    }
+                }
+            });
+        } else {
+            commit(reserved);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 排程回寫：把已提交的扣減量批次寫回資料庫
+     */
+    @Scheduled(fixedDelayString = "${stock.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        lockAll();
+        try {
+            List<StockReservation> deductions = new ArrayList<>();
+            for (Map.Entry<Integer, AtomicInteger> entry : pending.entrySet()) {
+                int quantity = entry.getValue().getAndSet(0);
+                if (quantity > 0) {
+                    deductions.add(new StockReservation(entry.getKey(), quantity));
+                }
+            }
+            if (deductions.isEmpty()) {
+                return;
+            }
+
+            try {
+                productRepository.applyStockDeductions(deductions);
+            } catch (RuntimeException e) {
+                // 寫回失敗：放回待回寫，下一輪再試
+                for (StockReservation deduction : deductions) {
+                    pendingOf(deduction.productId()).addAndGet(deduction.quantity());
+                }
+                System.err.println("庫存回寫失敗，稍後重試：" + e.getMessage());
+                return;
+            }
+
+            // 資料庫已扣：knownStock 跟著扣（仍在鎖內，對帳讀到的資料庫值與 knownStock 一致）
+            for (StockReservation deduction : deductions) {
+                AtomicInteger stock = knownStock.get(deduction.productId());
+                if (stock != null) {
+                    stock.addAndGet(-deduction.quantity());
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * 關閉前把剩下的扣減量寫回
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 商品異動（交易提交後）：後台改庫存時重新對帳，刪除則移出帳本
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Integer productId = event.productId();
+        if (event.status() == null) {
+            ReentrantLock lock = stripeOf(productId);
+            lock.lock();
+            try {
+                available.remove(productId);
+                knownStock.remove(productId);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        refresh(productId);
+    }
+
+    // ===== 內部方法 =====
+
+    private boolean tryDecrement(Integer productId, int quantity) {
+        AtomicInteger counter = counterOf(productId);
+        if (counter == null) {
+            return false;
+        }
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(List<StockReservation> reservations) {
+        for (StockReservation reservation : reservations) {
+            AtomicInteger counter = available.get(reservation.productId());
+            if (counter != null) {
+                counter.addAndGet(reservation.quantity());
+            }
+        }
+    }
+
+    private void commit(List<StockReservation> reservations) {
+        for (StockReservation reservation : reservations) {
+            pendingOf(reservation.productId()).addAndGet(reservation.quantity());
+        }
+    }
+
+    /**
+     * 重新對帳單一商品：在分段鎖內讀資料庫，不會讀到回寫到一半的狀態
+     */
+    private void refresh(Integer productId) {
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            productRepository.findStockLevel(productId).ifPresent(this::apply);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 以資料庫庫存對帳（呼叫端持有該商品的分段鎖）：只把「資料庫庫存的變化量」加到可售量上，
+     * 進行中的保留與未回寫的扣減都不受影響
+     */
+    private void apply(StockLevel level) {
+        int stockQuantity = level.stockQuantity() != null ? level.stockQuantity() : 0;
+        AtomicInteger stock = knownStock.get(level.productId());
+        if (stock == null) {
+            int unflushed = pendingOf(level.productId()).get();
+            knownStock.put(level.productId(), new AtomicInteger(stockQuantity));
+            available.put(level.productId(), new AtomicInteger(stockQuantity - unflushed));
+        } else {
+            int delta = stockQuantity - stock.getAndSet(stockQuantity);
+            available.get(level.productId()).addAndGet(delta);
+        }
+    }
+
+    private AtomicInteger counterOf(Integer productId) {
+        AtomicInteger counter = available.get(productId);
+        if (counter == null) {
+            refresh(productId);
+            counter = available.get(productId);
+        }
+        return counter;
+    }
+
+    private AtomicInteger pendingOf(Integer productId) {
+        return pending.computeIfAbsent(productId, id -> new AtomicInteger());
+    }
+
+    private ReentrantLock stripeOf(Integer productId) {
+        return stripes[Math.floorMod(productId.hashCode(), STRIPES)];
+    }
+
+    // 依固定順序取得全部分段鎖（回寫與整份載入用），不會和單一分段的對帳互相死結
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
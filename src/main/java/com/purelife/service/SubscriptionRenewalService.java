@@ -0,0 +1,486 @@
+package com.purelife.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.purelife.entity.Order;
+import com.purelife.entity.OrderItem;
+import com.purelife.entity.RenewalCheckpoint;
+import com.purelife.exception.BusinessException;
+import com.purelife.repository.MemberSubscriptionRepository;
+import com.purelife.repository.MemberSubscriptionRepositoryCustom.DeliveryAdvance;
+import com.purelife.repository.OrderItemRepository;
+import com.purelife.repository.OrderRepository;
+import com.purelife.repository.ProductRepository;
+import com.purelife.repository.ProductRepositoryCustom.StockReservation;
+import com.purelife.repository.RenewalCheckpointRepository;
+import com.purelife.repository.projection.RenewalCandidate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 定期購續訂排程：找出配送日已到的 active 訂閱，產生訂單與明細，並把配送日往後推一個週期
+ *
+ * 依 subscription_id 游標分段讀取，每段在自己的交易中處理（交易短、鎖的列少），多段平行執行；
+ * 訂單、明細、配送日都用 JDBC batch 寫入。先以「配送日仍是這一期」為條件推進配送日，
+ * 推進成功的才產生訂單，同一期不會被重複出貨。
+ * 出貨前和結帳一樣扣庫存（依商品合計）；庫存不足的商品這一期先不出貨，配送日改回原日期，
+ * 補貨後的下一次執行再處理，不會產生沒有扣到庫存的訂單。
+ *
+ * 進度記在 renewal_checkpoints：連續完成的段推進 last_subscription_id，
+ * 同一執行日中斷後重跑只掃描剩下的訂閱。訂單編號每期固定，已存在的不會再建立。
+ * 到期的訂閱 ID 從配送行事曆取得（只看到期的那幾天），行事曆尚未載入時改用資料庫游標掃描。
+ */
+@Service
+public class SubscriptionRenewalService {
+
+    // 排程與「今天」都以台灣時間為準（主機可能是 UTC）
+    private static final String ZONE = "Asia/Taipei";
+
+    private static final DateTimeFormatter ORDER_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final MemberSubscriptionRepository subscriptionRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+    private final ObjectProvider<StockLedger> stockLedgerProvider;
+    private final RenewalCheckpointRepository checkpointRepository;
+    private final DeliveryCalendar deliveryCalendar;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int chunkSize;
+
+    // 同一時間只跑一次（排程與後台手動觸發共用）
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 執行結果
+     */
+    public record RenewalResult(LocalDate runDate, int resumedAfterId, int scanned, int renewed,
+                                int outOfStock, int skipped, int failed, int failedChunks, long elapsedMillis) {
+    }
+
+    /**
+     * 一段的處理結果：產生的訂單數、因庫存不足這一期沒出貨的訂閱數
+     */
+    private record ChunkOutcome(int renewed, int outOfStock) {
+    }
+
+    public SubscriptionRenewalService(MemberSubscriptionRepository subscriptionRepository,
+                                      OrderRepository orderRepository,
+                                      OrderItemRepository orderItemRepository,
+                                      ProductRepository productRepository,
+                                      ObjectProvider<StockLedger> stockLedgerProvider,
+                                      RenewalCheckpointRepository checkpointRepository,
+                                      DeliveryCalendar deliveryCalendar,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${subscription.renewal.parallelism:4}") int parallelism,
+                                      @Value("${subscription.renewal.chunk-size:500}") int chunkSize) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productRepository = productRepository;
+        this.stockLedgerProvider = stockLedgerProvider;
+        this.checkpointRepository = checkpointRepository;
+        this.deliveryCalendar = deliveryCalendar;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "subscription-renewal-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 每天定時執行（預設凌晨 2 點）
+     */
+    @Scheduled(cron = "${subscription.renewal.cron:0 0 2 * * *}", zone = ZONE)
+    public void runScheduled() {
+        try {
+            RenewalResult result = runRenewals(today());
+            System.out.println("定期購續訂完成：" + result);
+        } catch (BusinessException e) {
+            System.out.println("定期購續訂略過：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 續訂排程所在時區的今天
+     */
+    public LocalDate today() {
+        return LocalDate.now(ZoneId.of(ZONE));
+    }
+
+    /**
+     * 處理配送日在 runDate（含）之前的所有 active 訂閱；同一執行日已有進度時從進度之後接續
+     *
+     * 行事曆有載入時只看行事曆上到期的 ID（O(到期筆數)），不掃 member_subscriptions；
+     * 行事曆與資料庫的落差由行事曆每小時整份重建校正，漏掉的訂閱配送日沒有推進，仍是到期狀態，
+     * 下一次執行會處理。行事曆尚未載入（剛啟動）時才用資料庫游標掃描
+     * （走 idx_member_subscriptions_due，見 db/member_subscriptions_due_index.sql）。
+     */
+    public RenewalResult runRenewals(LocalDate runDate) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("續訂排程正在執行中");
+        }
+
+        long start = System.currentTimeMillis();
+        RunState state = new RunState(runDate);
+        int resumedAfterId = 0;
+
+        try {
+            resumedAfterId = checkpointRepository.findById(runDate)
+                    .map(RenewalCheckpoint::getLastSubscriptionId)
+                    .orElse(0);
+            ChunkWatermark watermark = new ChunkWatermark(resumedAfterId);
+
+            // 行事曆有載入：到期 ID 一次取出再分段；沒有：依 subscription_id 游標掃描
+            List<Integer> dueIds = deliveryCalendar.isLoaded()
+                    ? deliveryCalendar.dueThrough(runDate, resumedAfterId)
+                    : null;
+            int position = 0;
+
+            int afterId = resumedAfterId;
+            while (true) {
+                List<RenewalCandidate> chunk;
+                if (dueIds != null) {
+                    if (position >= dueIds.size()) {
+                        break;
+                    }
+                    List<Integer> ids = dueIds.subList(position, Math.min(position + chunkSize, dueIds.size()));
+                    position += ids.size();
+                    afterId = ids.get(ids.size() - 1);
+                    chunk = subscriptionRepository.findDueForRenewalByIds(ids, runDate);
+                } else {
+                    chunk = subscriptionRepository.findDueForRenewal(runDate, afterId, chunkSize);
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+                    afterId = chunk.get(chunk.size() - 1).subscriptionId();
+                }
+                state.scanned += chunk.size();
+                int chunkLastId = afterId;
+                watermark.register(chunkLastId);
+                if (chunk.isEmpty()) {
+                    // 行事曆上的訂閱已不再到期（例如剛暫停），這一段沒有要處理的
+                    Integer reached = watermark.complete(chunkLastId);
+                    if (reached != null) {
+                        saveCheckpoint(runDate, reached, false);
+                    }
+                    continue;
+                }
+                submit(state, chunk, watermark, chunkLastId);
+
+                if (dueIds == null && chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            state.await();
+
+            if (state.failedChunks.get() == 0) {
+                saveCheckpoint(runDate, afterId, true);
+            }
+        } finally {
+            running.set(false);
+        }
+
+        int renewed = state.renewed.get();
+        int outOfStock = state.outOfStock.get();
+        int failed = state.failed.get();
+        return new RenewalResult(runDate, resumedAfterId, state.scanned, renewed, outOfStock,
+                state.scanned - renewed - outOfStock - failed, failed, state.failedChunks.get(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 送出一段到執行緒池，完成後推進進度
+     */
+    private void submit(RunState state, List<RenewalCandidate> chunk, ChunkWatermark watermark, int chunkLastId) {
+        state.inFlight.acquireUninterruptibly();
+        state.futures.add(executor.submit(() -> {
+            try {
+                ChunkOutcome outcome = processChunk(chunk, state.runDate);
+                state.renewed.addAndGet(outcome.renewed());
+                state.outOfStock.addAndGet(outcome.outOfStock());
+                Integer reached = watermark.complete(chunkLastId);
+                if (reached != null) {
+                    saveCheckpoint(state.runDate, reached, false);
+                }
+            } catch (RuntimeException e) {
+                // 這一段 rollback，配送日沒有推進，下次執行會再處理
+                state.failedChunks.incrementAndGet();
+                state.failed.addAndGet(chunk.size());
+                System.err.println("定期購續訂失敗（subscription_id "
+                        + chunk.get(0).subscriptionId() + " ~ "
+                        + chunk.get(chunk.size() - 1).subscriptionId() + "）：" + e.getMessage());
+            } finally {
+                state.inFlight.release();
+            }
+        }));
+    }
+
+    /**
+     * 處理一段（單一交易）：推進配送日 → 扣庫存 → 批次新增訂單 → 依訂單編號取回 ID → 批次新增明細
+     */
+    private ChunkOutcome processChunk(List<RenewalCandidate> chunk, LocalDate runDate) {
+        ChunkOutcome outcome = transactionTemplate.execute(status -> {
+            // 1. 推進配送日（條件式 UPDATE，推進成功才算這一期歸我處理）
+            List<DeliveryAdvance> advances = chunk.stream()
+                    .map(c -> new DeliveryAdvance(c.subscriptionId(), c.nextDeliveryDate(),
+                            nextDeliveryDate(c, runDate)))
+                    .collect(Collectors.toList());
+            Set<Integer> claimed = Set.copyOf(subscriptionRepository.advanceDeliveryDates(advances));
+            if (claimed.isEmpty()) {
+                return new ChunkOutcome(0, 0);
+            }
+
+            // 這一期的訂單已存在（例如上次執行建了訂單但配送日被改回），只推進配送日不再建立
+            List<RenewalCandidate> claimedCandidates = chunk.stream()
+                    .filter(c -> claimed.contains(c.subscriptionId()))
+                    .collect(Collectors.toList());
+            Set<String> existing = Set.copyOf(orderRepository.findExistingOrderNumbers(
+                    claimedCandidates.stream().map(this::orderNumber).collect(Collectors.toList())));
+            List<RenewalCandidate> renewals = claimedCandidates.stream()
+                    .filter(c -> !existing.contains(orderNumber(c)))
+                    .collect(Collectors.toList());
+
+            // 2. 扣庫存：不足的商品這一期不出貨，配送日改回原日期（仍是到期狀態，下次執行再處理）
+            Set<Integer> shortProductIds = reserveStock(renewals);
+            List<DeliveryAdvance> reverts = renewals.stream()
+                    .filter(c -> shortProductIds.contains(c.productId()))
+                    .map(c -> new DeliveryAdvance(c.subscriptionId(), nextDeliveryDate(c, runDate),
+                            c.nextDeliveryDate()))
+                    .collect(Collectors.toList());
+            Set<Integer> reverted = Set.copyOf(subscriptionRepository.advanceDeliveryDates(reverts));
+            renewals = renewals.stream()
+                    .filter(c -> !reverted.contains(c.subscriptionId()))
+                    .collect(Collectors.toList());
+
+            for (DeliveryAdvance advance : advances) {
+                if (claimed.contains(advance.subscriptionId()) && !reverted.contains(advance.subscriptionId())) {
+                    deliveryCalendar.schedule(advance.subscriptionId(), advance.nextDate());
+                }
+            }
+            if (renewals.isEmpty()) {
+                return new ChunkOutcome(0, reverted.size());
+            }
+
+            // 3. 批次新增訂單
+            LocalDateTime now = LocalDateTime.now();
+            List<Order> orders = renewals.stream()
+                    .map(c -> buildOrder(c, now))
+                    .collect(Collectors.toList());
+            orderRepository.batchInsert(orders);
+
+            // 4. 依訂單編號取回 order_id
+            Map<String, Integer> orderIds = orderRepository.findByOrderNumberIn(
+                            orders.stream().map(Order::getOrderNumber).collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(Order::getOrderNumber, Order::getOrderId));
+
+            // 5. 批次新增明細
+            List<OrderItem> items = renewals.stream()
+                    .map(c -> buildItem(c, orderIds.get(orderNumber(c))))
+                    .collect(Collectors.toList());
+            orderItemRepository.batchInsert(items);
+
+            return new ChunkOutcome(orders.size(), reverted.size());
+        });
+        return outcome != null ? outcome : new ChunkOutcome(0, 0);
+    }
+
+    /**
+     * 依商品合計扣庫存（與結帳相同：有啟用庫存帳本時扣帳本，否則條件式 UPDATE），在呼叫端的交易中執行
+     * @return 庫存不足（或已下架）而沒有扣到的商品 ID
+     */
+    private Set<Integer> reserveStock(List<RenewalCandidate> renewals) {
+        if (renewals.isEmpty()) {
+            return Set.of();
+        }
+
+        // 依商品 ID 排序，與結帳的鎖定順序一致，避免死結
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (RenewalCandidate c : renewals) {
+            quantities.merge(c.productId(), c.quantity(), Integer::sum);
+        }
+        List<StockReservation> reservations = quantities.entrySet().stream()
+                .map(entry -> new StockReservation(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+
+        StockLedger stockLedger = stockLedgerProvider.getIfAvailable();
+        if (stockLedger == null) {
+            return Set.copyOf(productRepository.reserveStock(reservations));
+        }
+
+        // 帳本不看上架狀態，先排除已下架的商品；帳本一次保留是全有全無，這裡逐項保留，有貨的照常出貨
+        Set<Integer> failedProductIds = renewals.stream()
+                .filter(c -> !"available".equals(c.productStatus()))
+                .map(RenewalCandidate::productId)
+                .collect(Collectors.toCollection(HashSet::new));
+        for (StockReservation reservation : reservations) {
+            if (!failedProductIds.contains(reservation.productId())) {
+                failedProductIds.addAll(stockLedger.reserve(List.of(reservation)));
+            }
+        }
+        return failedProductIds;
+    }
+
+    // 進度寫入失敗不影響這一輪（重跑時由條件式推進與訂單編號擋掉重複），只記錄
+    private void saveCheckpoint(LocalDate runDate, int lastSubscriptionId, boolean completed) {
+        try {
+            checkpointRepository.upsert(runDate, lastSubscriptionId, completed);
+        } catch (RuntimeException e) {
+            System.err.println("續訂進度寫入失敗：" + e.getMessage());
+        }
+    }
+
+    // 下次配送日：往後推一個週期；若排程停過好幾期，直接推到 runDate 之後（只補出一期）
+    private LocalDate nextDeliveryDate(RenewalCandidate c, LocalDate runDate) {
+        LocalDate next = c.nextDeliveryDate().plusDays(c.cycleDays());
+        while (!next.isAfter(runDate)) {
+            next = next.plusDays(c.cycleDays());
+        }
+        return next;
+    }
+
+    // 訂單編號：SUB + 這一期的配送日 + 訂閱 ID（同一期永遠相同）
+    private String orderNumber(RenewalCandidate c) {
+        return "SUB" + c.nextDeliveryDate().format(ORDER_DATE) + c.subscriptionId();
+    }
+
+    private Order buildOrder(RenewalCandidate c, LocalDateTime now) {
+        Order order = new Order();
+        order.setMemberId(c.memberId());
+        order.setOrderNumber(orderNumber(c));
+        order.setOrderStatus("pending");
+        order.setPaymentStatus("unpaid");
+        order.setTotalAmount(subtotal(c));
+        order.setShippingFee(BigDecimal.ZERO);  // 定期購免運費
+        order.setRecipientName(c.recipientName());
+        order.setRecipientPhone(c.recipientPhone());
+        order.setRecipientAddress(c.recipientAddress());
+        order.setPaymentMethod(c.paymentMethod());
+        order.setOrderTime(now);
+        return order;
+    }
+
+    private OrderItem buildItem(RenewalCandidate c, Integer orderId) {
+        OrderItem item = new OrderItem();
+        item.setOrderId(orderId);
+        item.setProductId(c.productId());
+        item.setSpecInfo("定期購配送（" + c.nextDeliveryDate() + "）");
+        item.setQuantity(c.quantity());
+        item.setUnitPrice(unitPrice(c));
+        item.setSubtotal(subtotal(c));
+        return item;
+    }
+
+    // 計價與首次出貨（SubscriptionService.createFirstOrder）相同
+    private BigDecimal unitPrice(RenewalCandidate c) {
+        BigDecimal basePrice = c.promotionPrice() != null ? c.promotionPrice() : c.price();
+        if (c.discountRate() == null) {
+            return basePrice;
+        }
+        BigDecimal discountRate = BigDecimal.ONE.subtract(
+                c.discountRate().divide(new BigDecimal("100")));
+        return basePrice.multiply(discountRate);
+    }
+
+    private BigDecimal subtotal(RenewalCandidate c) {
+        return unitPrice(c).multiply(new BigDecimal(c.quantity()));
+    }
+
+    /**
+     * 一次執行的計數與進行中的段
+     */
+    private final class RunState {
+
+        private final LocalDate runDate;
+        private final AtomicInteger renewed = new AtomicInteger();
+        private final AtomicInteger outOfStock = new AtomicInteger();
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();  // 失敗段裡的訂閱數（不算略過）
+        // 限制同時在處理中的段數，讀取不會跑在處理前面太多
+        private final Semaphore inFlight = new Semaphore(parallelism * 2);
+        private final List<Future<?>> futures = new ArrayList<>();
+        private int scanned;  // 只在呼叫端執行緒更新
+
+        RunState(LocalDate runDate) {
+            this.runDate = runDate;
+        }
+
+        // 等目前送出的段全部結束
+        void await() {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    failedChunks.incrementAndGet();
+                }
+            }
+            futures.clear();
+        }
+    }
+
+    /**
+     * 平行處理時各段完成順序不一定，進度只推進到「前面所有段都已完成」的位置；
+     * 失敗的段會擋住進度，重跑時從它開始
+     */
+    static final class ChunkWatermark {
+
+        // 段的最後一個 subscription_id → 是否已完成（依 ID 排序）
+        private final TreeMap<Integer, Boolean> chunks = new TreeMap<>();
+        private int reached;
+
+        ChunkWatermark(int start) {
+            this.reached = start;
+        }
+
+        synchronized void register(int chunkLastId) {
+            chunks.put(chunkLastId, false);
+        }
+
+        /**
+         * @return 新的進度（沒有推進回傳 null）
+         */
+        synchronized Integer complete(int chunkLastId) {
+            chunks.put(chunkLastId, true);
+            int before = reached;
+            while (!chunks.isEmpty() && chunks.firstEntry().getValue()) {
+                reached = chunks.pollFirstEntry().getKey();
+            }
+            return reached != before ? reached : null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
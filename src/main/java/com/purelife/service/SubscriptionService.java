@@ -1,11 +1,9 @@
 package com.purelife.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
@@ -24,6 +22,7 @@ import com.purelife.repository.OrderItemRepository;
 import com.purelife.repository.OrderRepository;
 import com.purelife.repository.ProductRepository;
 import com.purelife.repository.SubscriptionPlanRepository;
+import com.purelife.service.PlanPriceTable.PlanPrice;
 
 import lombok.RequiredArgsConstructor;
 
@@ -36,70 +35,28 @@ public class SubscriptionService {
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final DeliveryCalendar deliveryCalendar;
+    private final PlanPriceTable planPriceTable;
 
     /**
      * 取得商品的訂閱方案
      */
     public List<SubscriptionPlanResponse> getProductPlans(Integer productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("商品不存在"));
-
-        List<SubscriptionPlan> plans = planRepository.findByProductId(productId);
-
-        // 取得實際價格（有促銷價就用促銷價）
-        BigDecimal basePrice = product.getPromotionPrice() != null 
-                ? product.getPromotionPrice() 
-                : product.getPrice();
+        List<PlanPrice> prices = planPriceTable.getByProductId(productId);
+        if (prices.isEmpty() && !productRepository.existsById(productId)) {
+            throw new RuntimeException("商品不存在");
+        }
 
-        return plans.stream()
-                .map(plan -> {
-                    BigDecimal subscriptionPrice = calculateSubscriptionPrice(basePrice, plan.getDiscountRate());
-                    
-                    return SubscriptionPlanResponse.builder()
-                            .planId(plan.getPlanId())
-                            .productId(plan.getProductId())
-                            .cycleType(plan.getCycleType())
-                            .cycleDays(plan.getCycleDays())
-                            .discountRate(plan.getDiscountRate())
-                            .cycleText(getCycleText(plan.getCycleType()))
-                            .originalPrice(basePrice)
-                            .subscriptionPrice(subscriptionPrice)
-                            .build();
-                })
+        return prices.stream()
+                .map(PlanPrice::toPlanResponse)
                 .collect(Collectors.toList());
     }
 
     public SubscriptionPlanResponse getPlanById(Integer planId) {
-        Optional<SubscriptionPlan> planOpt = planRepository.findById(planId);
-        if (planOpt.isEmpty()) {
-            return null; // 找不到方案就回 null
-        }
-
-        SubscriptionPlan plan = planOpt.get();
-
-        Optional<Product> productOpt = productRepository.findById(plan.getProductId());
-        if (productOpt.isEmpty()) {
-            return null; // 找不到商品也回 null
-        }
-
-        Product product = productOpt.get();
-
-        BigDecimal basePrice = product.getPromotionPrice() != null
-                ? product.getPromotionPrice()
-                : product.getPrice();
-
-        BigDecimal subscriptionPrice = calculateSubscriptionPrice(basePrice, plan.getDiscountRate());
-
-        return SubscriptionPlanResponse.builder()
-                .planId(plan.getPlanId())
-                .productId(plan.getProductId())
-                .cycleType(plan.getCycleType())
-                .cycleDays(plan.getCycleDays())
-                .discountRate(plan.getDiscountRate())
-                .cycleText(getCycleText(plan.getCycleType()))
-                .originalPrice(basePrice)
-                .subscriptionPrice(subscriptionPrice)
-                .build();
+        // 找不到方案或商品就回 null
+        return planPriceTable.get(planId)
+                .map(PlanPrice::toPlanResponse)
+                .orElse(null);
     }
 
     /**
@@ -133,6 +90,7 @@ public class SubscriptionService {
 
         MemberSubscription saved = subscriptionRepository.save(subscription);
         createFirstOrder(memberId, saved, plan, request);
+        deliveryCalendar.schedule(saved.getSubscriptionId(), saved.getNextDeliveryDate());
         return convertToResponse(saved);
     }
 
@@ -215,6 +173,7 @@ public class SubscriptionService {
 
         subscription.setSubscriptionStatus("paused");
         MemberSubscription saved = subscriptionRepository.save(subscription);
+        deliveryCalendar.unschedule(subscriptionId);
 
         return convertToResponse(saved);
     }
@@ -239,6 +198,7 @@ public class SubscriptionService {
         subscription.setSubscriptionStatus("active");
         subscription.setNextDeliveryDate(LocalDate.now().plusDays(plan.getCycleDays()));
         MemberSubscription saved = subscriptionRepository.save(subscription);
+        deliveryCalendar.schedule(subscriptionId, saved.getNextDeliveryDate());
 
         return convertToResponse(saved);
     }
@@ -259,53 +219,19 @@ public class SubscriptionService {
         subscription.setSubscriptionStatus("cancelled");
         subscription.setEndDate(LocalDate.now());
         MemberSubscription saved = subscriptionRepository.save(subscription);
+        deliveryCalendar.unschedule(subscriptionId);
 
         return convertToResponse(saved);
     }
 
-    /**
-     * 計算訂閱價格
-     */
-    private BigDecimal calculateSubscriptionPrice(BigDecimal originalPrice, BigDecimal discountRate) {
-        if (discountRate == null) {
-            return originalPrice;
-        }
-        // 直接乘就好：原價 × 0.95 = 95折價格
-        return originalPrice.multiply(discountRate).setScale(0, RoundingMode.FLOOR);
-    }
-
-    /**
-     * 取得週期顯示文字
-     */
-    private String getCycleText(String cycleType) {
-        switch (cycleType) {
-            case "monthly":
-                return "每月配送";
-            case "quarterly":
-                return "每三個月配送";
-            case "biannual":
-                return "每六個月配送";
-            default:
-                return cycleType;
-        }
-    }
-
     /**
      * 轉換為回傳 DTO
      */
     private SubscriptionResponse convertToResponse(MemberSubscription subscription) {
-        SubscriptionPlan plan = planRepository.findById(subscription.getPlanId())
+        // 方案、商品摘要與價格都從價格表取得，不再逐筆查詢
+        PlanPrice price = planPriceTable.get(subscription.getPlanId())
                 .orElseThrow(() -> new RuntimeException("訂閱方案不存在"));
 
-        Product product = productRepository.findById(plan.getProductId())
-                .orElseThrow(() -> new RuntimeException("商品不存在"));
-
-        BigDecimal basePrice = product.getPromotionPrice() != null 
-                ? product.getPromotionPrice() 
-                : product.getPrice();
-
-        BigDecimal subscriptionPrice = calculateSubscriptionPrice(basePrice, plan.getDiscountRate());
-
         return SubscriptionResponse.builder()
             .subscriptionId(subscription.getSubscriptionId())
             .planId(subscription.getPlanId())
@@ -321,15 +247,15 @@ public class SubscriptionService {
             .recipientAddress(subscription.getRecipientAddress())
             .paymentMethod(subscription.getPaymentMethod())
             // 方案資訊
-            .cycleType(plan.getCycleType())
-            .cycleDays(plan.getCycleDays())
-            .discountRate(plan.getDiscountRate())
+            .cycleType(price.cycleType())
+            .cycleDays(price.cycleDays())
+            .discountRate(price.discountRate())
             // 商品資訊
-            .productId(product.getProductId())
-            .productName(product.getProductName())
-            .category(product.getCategory())
-            .originalPrice(basePrice)
-            .subscriptionPrice(subscriptionPrice)
+            .productId(price.productId())
+            .productName(price.productName())
+            .category(price.category())
+            .originalPrice(price.basePrice())
+            .subscriptionPrice(price.subscriptionPrice())
             .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.purelife.util;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * bcrypt（使用 Spring Security 內建實作）
+ * 儲存格式：bcrypt:$2a$成本$salt與hash
+ */
+public class BCryptPasswordHasher implements PasswordHasher {
+
+    public static final String ID = "bcrypt";
+
+    private static final String PREFIX = ID + ":";
+
+    private final int strength;
+
+    public BCryptPasswordHasher(int strength) {
+        this.strength = strength;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String password) {
+        return PREFIX + BCrypt.hashpw(password, BCrypt.gensalt(strength));
+    }
+
+    @Override
+    public boolean verify(String password, String encoded) {
+        if (!encoded.startsWith(PREFIX)) {
+            return false;
+        }
+        return BCrypt.checkpw(password, encoded.substring(PREFIX.length()));
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        // $2a$10$... 第二段是成本
+        String[] parts = encoded.substring(PREFIX.length()).split("\\$");
+        return parts.length < 3 || Integer.parseInt(parts[2]) != strength;
+    }
+}
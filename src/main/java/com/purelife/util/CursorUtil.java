@@ -0,0 +1,75 @@
+package com.purelife.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import com.purelife.controller.dto.response.CursorPage;
+import com.purelife.exception.BusinessException;
+
+/**
+ * 游標（keyset）分頁工具
+ * 查詢時多取一筆（limit + 1）來判斷是否還有下一頁，不用 COUNT(*) 也不用 OFFSET
+ */
+public class CursorUtil {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * 訂單游標：依 order_time DESC, order_id DESC 排序時的最後一筆位置
+     */
+    public record OrderCursor(LocalDateTime orderTime, Integer orderId) {
+    }
+
+    // 每頁筆數：沒給就用預設值，最多 MAX_LIMIT 筆
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null || limit < 1) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    // 以 ID 排序的列表：沒有 after 就從頭開始
+    public static int afterId(Integer after) {
+        return after != null ? after : 0;
+    }
+
+    // 訂單游標編碼成不透明字串（base64url），前端原封不動帶回即可
+    public static String encodeOrderCursor(LocalDateTime orderTime, Integer orderId) {
+        String raw = orderTime + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decodeOrderCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new BusinessException("無效的分頁游標");
+        }
+    }
+
+    /**
+     * 把多取一筆的查詢結果組成一頁
+     * @param rows 查詢結果（最多 limit + 1 筆）
+     * @param limit 每頁筆數
+     * @param cursorOf 由最後一筆取得下一頁游標
+     */
+    public static <T> CursorPage<T> toPage(List<T> rows, int limit, Function<T, String> cursorOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null;
+
+        return CursorPage.<T>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+}
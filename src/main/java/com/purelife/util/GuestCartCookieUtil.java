@@ -0,0 +1,50 @@
+package com.purelife.util;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.http.ResponseCookie;
+
+/**
+ * 訪客購物車 cookie 工具
+ * cookie 只放隨機 ID，購物車內容留在伺服器記憶體
+ */
+public class GuestCartCookieUtil {
+
+    public static final String COOKIE_NAME = "guest_cart_id";
+
+    private static final String COOKIE_PATH = "/api";
+    private static final Pattern ID_PATTERN =
+            Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$");
+
+    // 產生新的訪客購物車 ID
+    public static String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    // 檢查 cookie 值是否為我們發出的格式
+    public static boolean isValid(String guestCartId) {
+        return guestCartId != null && ID_PATTERN.matcher(guestCartId).matches();
+    }
+
+    // 建立 cookie
+    public static ResponseCookie create(String guestCartId, Duration maxAge) {
+        return ResponseCookie.from(COOKIE_NAME, guestCartId)
+                .path(COOKIE_PATH)
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+    }
+
+    // 清除 cookie（登入合併後使用）
+    public static ResponseCookie clear() {
+        return ResponseCookie.from(COOKIE_NAME, "")
+                .path(COOKIE_PATH)
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(0)
+                .build();
+    }
+}
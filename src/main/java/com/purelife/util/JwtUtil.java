@@ -1,18 +1,26 @@
 package com.purelife.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
 
 /**
  * 是一個「發會員識別證、驗證會員識別證、讀識別證內容」的工具
@@ -30,6 +38,57 @@ public class JwtUtil {
     @Value("${jwt.expiration}") //去application.properties / application.yml 找 jwt.expiration 這個key
     private long expiration;
 
+    // 已驗證 Token 快取的筆數上限
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    /**
+     * 驗證後的 Token 內容：一次解析就拿到全部需要的資訊
+     */
+    public record TokenClaims(Integer memberId, String account, Instant expiresAt) {
+
+        // 管理員 Token 的帳號固定加上 admin: 前綴（會員帳號是 Email，不會有這個前綴）
+        public boolean isAdmin() {
+            return account != null && account.startsWith(ADMIN_ACCOUNT_PREFIX);
+        }
+    }
+
+    public static final String ADMIN_ACCOUNT_PREFIX = "admin:";
+
+    // 啟動時建立一次，之後共用（SecretKey 與 JwtParser 都是不可變、執行緒安全的）
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // 已驗證過的 Token：key 是 Token 的 SHA-256，到期時間跟著 Token 的 exp 走
+    private Cache<String, TokenClaims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)); // 用 HMAC-SHA 演算法產生密鑰
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, TokenClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenClaims value, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenClaims value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenClaims value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     /**
      * 產生 JWT Token
      */
@@ -42,59 +101,55 @@ public class JwtUtil {
                    .claim("account", account)  // 額外資訊：帳號
                    .issuedAt(now)                    // 發行時間
                    .expiration(expiryDate)           // 簽名過期時間
-                   .signWith(getSigningKey())       // 發token、蓋章（用 secret）
+                   .signWith(signingKey)            // 發token、蓋章（用 secret）
                    .compact();                      // 壓縮成字串(回傳的那一串字，就是 JWT Token)
     }
 
     /**
-     * 從 Token 取得會員 ID:把 JWT 拆開，拿出 subject，轉成會員 ID
+     * 驗證 Token 並取出內容（給 JWT Filter 用）
+     * 同一個 Token 驗證過一次後，到期前都只查快取，不再重算 HMAC
+     *
+     * @return Token 內容，無效或過期回傳 null
      */
-    public Integer getMemberIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return Integer.parseInt(claims.getSubject());
-    }
+    public TokenClaims verify(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
 
-    /**
-     * 從 Token 取得帳號:把 JWT 拆開，拿出 account 欄位
-     */
-    public String getAccountFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("account", String.class);
-    }
+        String key = hash(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
 
-    /**
-     * 驗證 Token 是否有效(不是自己驗證，因為有可能是偽造的，所以交給 JWT 套件驗證)
-     */
-    public boolean validateToken(String token) {
         try {
-            parseToken(token);
-            return true;
-        } catch (SecurityException e) {
-            System.err.println("無效的 JWT 簽名: " + e.getMessage());
-        } catch (MalformedJwtException e) {
-            System.err.println("無效的 JWT 格式: " + e.getMessage());
+            Claims claims = parseToken(token);
+            TokenClaims verified = new TokenClaims(
+                    Integer.parseInt(claims.getSubject()),
+                    claims.get("account", String.class),
+                    claims.getExpiration().toInstant());
+            verifiedTokens.put(key, verified);
+            return verified;
         } catch (ExpiredJwtException e) {
             System.err.println("JWT 已過期: " + e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            System.err.println("不支援的 JWT: " + e.getMessage());
-        } catch (IllegalArgumentException e) {
-            System.err.println("JWT 為空: " + e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            // 簽名錯誤、格式錯誤、不支援或內容不完整，一律視為無效
+            System.err.println("無效的 JWT: " + e.getMessage());
         }
-        return false;
+        return null;
     }
 
     private Claims parseToken(String token) {
-        return Jwts.parser()
-                   .verifyWith(getSigningKey())
-                   .build()
-                   .parseSignedClaims(token)
-                   .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    //把設定檔裡的字串secret，轉成HMAC可以用的加密鑰匙
-    //加密不能用 String、加密底層只吃 byte[]
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes); // 用 HMAC-SHA 演算法產生密鑰
+    // 快取 key 用 Token 的雜湊，記憶體裡不留完整 Token
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
     }
 }
\ No newline at end of file
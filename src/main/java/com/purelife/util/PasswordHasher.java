@@ -0,0 +1,20 @@
+package com.purelife.util;
+
+/**
+ * 密碼雜湊演算法
+ * 儲存格式一律以演算法代號開頭：「代號:參數與雜湊值」，之後換演算法或調整成本時可以辨識舊資料
+ */
+public interface PasswordHasher {
+
+    // 演算法代號（儲存格式的第一段）
+    String id();
+
+    // 產生完整的儲存字串（含代號、參數、salt）
+    String hash(String password);
+
+    // 驗證密碼（encoded 為完整的儲存字串）
+    boolean verify(String password, String encoded);
+
+    // 儲存字串的成本參數和目前設定不同時，登入成功後要重新雜湊
+    boolean needsRehash(String encoded);
+}
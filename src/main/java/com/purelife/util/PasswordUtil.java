@@ -33,6 +33,22 @@ public class PasswordUtil {
     // 驗證密碼
     public static boolean verifyPassword(String password, String salt, String hashedPassword) {
         String newHash = hashPassword(password, salt);
-        return newHash.equals(hashedPassword);
+        return MessageDigest.isEqual(newHash.getBytes(), hashedPassword.getBytes());
+    }
+
+    // 是否為舊格式（salt:hash，單次 SHA-256）
+    // 新格式都以演算法代號開頭（bcrypt:$2a$... 也只有一個冒號），要先排除
+    public static boolean isLegacyFormat(String storedPassword) {
+        if (storedPassword.startsWith(Pbkdf2PasswordHasher.ID + ":")
+                || storedPassword.startsWith(BCryptPasswordHasher.ID + ":")) {
+            return false;
+        }
+        return storedPassword.split(":").length == 2;
+    }
+
+    // 驗證舊格式的儲存字串（登入成功後會改存新格式）
+    public static boolean verifyLegacy(String password, String storedPassword) {
+        String[] parts = storedPassword.split(":");
+        return parts.length == 2 && verifyPassword(password, parts[0], parts[1]);
     }
 }
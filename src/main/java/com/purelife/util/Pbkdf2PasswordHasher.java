@@ -0,0 +1,76 @@
+package com.purelife.util;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PBKDF2-HMAC-SHA256
+ * 儲存格式：pbkdf2:迭代次數:salt:hash（salt、hash 皆為 Base64）
+ */
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "pbkdf2";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_LENGTH = 16;
+    private static final int KEY_LENGTH = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    public Pbkdf2PasswordHasher(int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        return ID + ":" + iterations + ":"
+                + Base64.getEncoder().encodeToString(salt) + ":"
+                + Base64.getEncoder().encodeToString(hash);
+    }
+
+    @Override
+    public boolean verify(String password, String encoded) {
+        String[] parts = encoded.split(":");
+        if (parts.length != 4 || !ID.equals(parts[0])) {
+            return false;
+        }
+        int storedIterations = Integer.parseInt(parts[1]);
+        byte[] salt = Base64.getDecoder().decode(parts[2]);
+        byte[] storedHash = Base64.getDecoder().decode(parts[3]);
+
+        // 固定時間比較，避免由回應時間猜出雜湊值
+        return MessageDigest.isEqual(storedHash, derive(password, salt, storedIterations));
+    }
+
+    @Override
+    public boolean needsRehash(String encoded) {
+        String[] parts = encoded.split(":");
+        return parts.length != 4 || Integer.parseInt(parts[1]) != iterations;
+    }
+
+    private byte[] derive(String password, byte[] salt, int rounds) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("密碼加密失敗", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- 到期訂閱查詢用索引（SubscriptionRenewalService 行事曆尚未載入時的游標掃描、DeliveryCalendar 整份重建）
+-- 只讀 active 且配送日已到的範圍，不用掃整張 member_subscriptions
+-- 已有相同索引的環境請略過
+ALTER TABLE member_subscriptions
+    ADD INDEX idx_member_subscriptions_due (subscription_status, next_delivery_date, subscription_id);
@@ -0,0 +1,11 @@
+-- 定期購續訂進度（SubscriptionRenewalService）
+CREATE TABLE IF NOT EXISTS renewal_checkpoints (
+    run_date             DATE        NOT NULL PRIMARY KEY,
+    last_subscription_id INT         NOT NULL DEFAULT 0,
+    completed            TINYINT(1)  NOT NULL DEFAULT 0,
+    updated_at           DATETIME    NOT NULL
+);
+
+-- 續訂訂單以 order_number（SUB + 配送日 + 訂閱 ID）作為冪等鍵，由資料庫保證同一期只有一張
+-- 已有相同索引的環境請略過
+ALTER TABLE orders ADD UNIQUE KEY uk_orders_order_number (order_number);
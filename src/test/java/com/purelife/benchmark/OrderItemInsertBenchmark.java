@@ -0,0 +1,122 @@
+package com.purelife.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.purelife.backend.BackendApplication;
+import com.purelife.entity.Member;
+import com.purelife.entity.Order;
+import com.purelife.entity.OrderItem;
+import com.purelife.entity.Product;
+import com.purelife.repository.MemberRepository;
+import com.purelife.repository.OrderItemRepository;
+import com.purelife.repository.OrderRepository;
+import com.purelife.repository.ProductRepository;
+
+/**
+ * 訂單明細寫入效能比較：逐筆 save vs JDBC batch
+ * 需要連到實際資料庫，每輪都在交易中執行後 rollback，不會留下資料
+ * 執行：./gradlew test --tests '*OrderItemInsertBenchmark' -Dbenchmark=true
+ */
+@SpringBootTest(classes = BackendApplication.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderItemInsertBenchmark {
+
+    private static final int[] ITEM_COUNTS = {1, 5, 10, 20, 50, 100};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void compareSingleInsertWithBatchInsert() {
+        Member member = memberRepository.findAll().iterator().next();
+        Product product = productRepository.findAll().iterator().next();
+
+        System.out.println("========================================");
+        System.out.println("明細筆數 | 逐筆 save (ms) | batch insert (ms)");
+        for (int itemCount : ITEM_COUNTS) {
+            double single = measure(member, product, itemCount, false);
+            double batch = measure(member, product, itemCount, true);
+            System.out.printf("%8d | %14.2f | %17.2f%n", itemCount, single, batch);
+        }
+        System.out.println("========================================");
+    }
+
+    // 回傳平均每輪寫入明細的毫秒數（不含建立訂單本身）
+    private double measure(Member member, Product product, int itemCount, boolean batch) {
+        long totalNanos = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long elapsed = transactionTemplate.execute(status -> {
+                Order order = orderRepository.save(newOrder(member));
+                List<OrderItem> items = newItems(order, product, itemCount);
+
+                long start = System.nanoTime();
+                if (batch) {
+                    orderItemRepository.batchInsert(items);
+                } else {
+                    items.forEach(orderItemRepository::save);
+                }
+                long nanos = System.nanoTime() - start;
+
+                status.setRollbackOnly();
+                return nanos;
+            });
+            if (round >= WARMUP_ROUNDS) {
+                totalNanos += elapsed;
+            }
+        }
+        return totalNanos / (double) MEASURED_ROUNDS / 1_000_000;
+    }
+
+    private Order newOrder(Member member) {
+        Order order = new Order();
+        order.setMemberId(member.getMemberId());
+        order.setOrderNumber("BENCH" + System.nanoTime());
+        order.setOrderStatus("pending");
+        order.setPaymentStatus("unpaid");
+        order.setTotalAmount(BigDecimal.ZERO);
+        order.setShippingFee(BigDecimal.ZERO);
+        order.setRecipientName("benchmark");
+        order.setRecipientPhone("0900000000");
+        order.setRecipientAddress("benchmark");
+        order.setPaymentMethod("credit_card");
+        order.setOrderTime(LocalDateTime.now());
+        return order;
+    }
+
+    private List<OrderItem> newItems(Order order, Product product, int itemCount) {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrderId(order.getOrderId());
+            item.setProductId(product.getProductId());
+            item.setQuantity(1);
+            item.setUnitPrice(product.getPrice());
+            item.setSubtotal(product.getPrice());
+            items.add(item);
+        }
+        return items;
+    }
+}
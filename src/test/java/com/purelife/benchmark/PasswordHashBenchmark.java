@@ -0,0 +1,63 @@
+package com.purelife.benchmark;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.purelife.util.BCryptPasswordHasher;
+import com.purelife.util.PasswordHasher;
+import com.purelife.util.Pbkdf2PasswordHasher;
+
+/**
+ * 密碼雜湊成本量測：不同 PBKDF2 迭代次數與 bcrypt 成本下，單次驗證的 p50 / p99
+ * 選擇 p99 符合登入延遲預算的最高成本，設定到 password.hash.*
+ * 不需要資料庫，在正式機規格的機器上執行：./gradlew test --tests '*PasswordHashBenchmark' -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordHashBenchmark {
+
+    private static final int[] PBKDF2_ITERATIONS = {100_000, 210_000, 310_000, 600_000};
+    private static final int[] BCRYPT_STRENGTHS = {10, 11, 12};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final String PASSWORD = "benchmark-password-123";
+
+    @Test
+    void measureVerifyLatency() {
+        System.out.println("========================================");
+        System.out.println("演算法              | p50 (ms) | p99 (ms)");
+        for (int iterations : PBKDF2_ITERATIONS) {
+            report("pbkdf2 " + iterations, new Pbkdf2PasswordHasher(iterations));
+        }
+        for (int strength : BCRYPT_STRENGTHS) {
+            report("bcrypt " + strength, new BCryptPasswordHasher(strength));
+        }
+        System.out.println("========================================");
+    }
+
+    private void report(String name, PasswordHasher hasher) {
+        String encoded = hasher.hash(PASSWORD);
+
+        long[] nanos = new long[MEASURED_ROUNDS];
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            if (!hasher.verify(PASSWORD, encoded)) {
+                throw new IllegalStateException(name + " 驗證失敗");
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                nanos[round - WARMUP_ROUNDS] = elapsed;
+            }
+        }
+
+        Arrays.sort(nanos);
+        System.out.printf("%-19s | %8.1f | %8.1f%n", name,
+                percentile(nanos, 0.50), percentile(nanos, 0.99));
+    }
+
+    private double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.purelife.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.purelife.entity.Cart;
+import com.purelife.repository.CartRepository;
+import com.purelife.repository.CartRepositoryCustom.QuantityChange;
+import com.purelife.service.CartWriteBuffer.PendingUpdate;
+
+/**
+ * 購物車寫入緩衝：連續點擊合併成一次條件式 UPDATE、被其他寫入改過時以資料庫為準、結帳前寫回
+ */
+class CartWriteBufferTest {
+
+    private static final int MEMBER_ID = 7;
+    private static final int OTHER_MEMBER_ID = 8;
+
+    private CartRepository cartRepository;
+    private CartWriteBuffer buffer;
+
+    // 每次條件式寫回送出的內容
+    private final List<List<QuantityChange>> writes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cartRepository = mock(CartRepository.class);
+        buffer = new CartWriteBuffer(cartRepository);
+        applyAll();
+    }
+
+    @Test
+    void coalescesClicksIntoOneConditionalUpdate() {
+        Cart cart = cart(1, MEMBER_ID, 1);
+        buffer.put(cart, 2);
+        buffer.put(buffer.get(1).toCart(), 3);
+
+        buffer.flush();
+
+        assertEquals(List.of(List.of(new QuantityChange(1, 1, 3))), writes);
+        assertNull(buffer.get(1));
+    }
+
+    @Test
+    void conflictingWriteDropsBufferedQuantity() {
+        doReturn(List.of()).when(cartRepository).batchCompareAndSetQuantities(anyList());
+        buffer.put(cart(1, MEMBER_ID, 1), 4);
+
+        buffer.flush();
+
+        // 資料庫已被其他寫入改過：以資料庫為準
+        assertNull(buffer.get(1));
+        assertTrue(buffer.getQuantities(MEMBER_ID).isEmpty());
+    }
+
+    @Test
+    void clickDuringWriteIsKeptAndRebased() {
+        buffer.put(cart(1, MEMBER_ID, 1), 3);
+        doAnswer(invocation -> {
+            List<QuantityChange> changes = invocation.getArgument(0);
+            writes.add(List.copyOf(changes));
+            // 寫回途中使用者又按了一次
+            buffer.put(buffer.get(1).toCart(), 5);
+            return List.of(1);
+        }).when(cartRepository).batchCompareAndSetQuantities(anyList());
+
+        buffer.flush();
+
+        PendingUpdate pending = buffer.get(1);
+        assertNotNull(pending);
+        assertEquals(5, pending.quantity());
+        assertEquals(3, pending.baseQuantity());
+
+        applyAll();
+        buffer.flush();
+        assertEquals(new QuantityChange(1, 3, 5), writes.get(writes.size() - 1).get(0));
+        assertNull(buffer.get(1));
+    }
+
+    @Test
+    void failedWriteKeepsBuffer() {
+        doThrow(new IllegalStateException("模擬寫入失敗"))
+                .when(cartRepository).batchCompareAndSetQuantities(anyList());
+        buffer.put(cart(1, MEMBER_ID, 1), 3);
+
+        buffer.flush();
+
+        assertEquals(3, buffer.get(1).quantity());
+        assertEquals(1, buffer.get(1).baseQuantity());
+    }
+
+    @Test
+    void flushMemberWritesOnlyThatMemberBeforeCheckout() {
+        List<List<Cart>> updates = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Cart> carts = invocation.getArgument(0);
+            updates.add(List.copyOf(carts));
+            return null;
+        }).when(cartRepository).batchUpdateQuantities(anyList());
+        buffer.put(cart(1, MEMBER_ID, 1), 3);
+        buffer.put(cart(2, OTHER_MEMBER_ID, 1), 6);
+
+        buffer.flushMember(MEMBER_ID);
+
+        assertEquals(1, updates.size());
+        assertEquals(1, updates.get(0).size());
+        assertEquals(1, updates.get(0).get(0).getCartId());
+        assertEquals(3, updates.get(0).get(0).getQuantity());
+        // 結帳交易可能 rollback，緩衝先留著，由清空購物車一併丟棄
+        assertNotNull(buffer.get(1));
+
+        buffer.discardMember(MEMBER_ID);
+        assertNull(buffer.get(1));
+        assertNotNull(buffer.get(2));
+        verify(cartRepository, never()).batchCompareAndSetQuantities(anyList());
+    }
+
+    // 條件式寫回：全部套用成功，並記錄送出的內容
+    private void applyAll() {
+        doAnswer(invocation -> {
+            List<QuantityChange> changes = invocation.getArgument(0);
+            writes.add(List.copyOf(changes));
+            List<Integer> applied = new ArrayList<>();
+            changes.forEach(change -> applied.add(change.cartId()));
+            return applied;
+        }).when(cartRepository).batchCompareAndSetQuantities(anyList());
+    }
+
+    private static Cart cart(int cartId, int memberId, int quantity) {
+        Cart cart = new Cart();
+        cart.setCartId(cartId);
+        cart.setMemberId(memberId);
+        cart.setProductId(100 + cartId);
+        cart.setQuantity(quantity);
+        cart.setAddedTime(LocalDateTime.of(2026, 10, 1, 12, 0));
+        return cart;
+    }
+}
@@ -0,0 +1,49 @@
+package com.purelife.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import com.purelife.service.SubscriptionRenewalService.ChunkWatermark;
+
+/**
+ * 續訂進度：段不依順序完成時，進度只推進到前面都完成的位置
+ */
+class ChunkWatermarkTest {
+
+    @Test
+    void advancesOnlyPastContiguousCompletedChunks() {
+        ChunkWatermark watermark = new ChunkWatermark(0);
+        watermark.register(100);
+        watermark.register(200);
+        watermark.register(300);
+
+        // 後面的段先完成：前面還沒完成，不推進
+        assertNull(watermark.complete(300));
+        assertNull(watermark.complete(200));
+
+        // 第一段完成：一口氣推進到最後一個連續完成的段
+        assertEquals(300, watermark.complete(100));
+    }
+
+    @Test
+    void failedChunkBlocksProgress() {
+        ChunkWatermark watermark = new ChunkWatermark(0);
+        watermark.register(100);
+        watermark.register(200);
+        watermark.register(300);
+
+        assertEquals(100, watermark.complete(100));
+        // 200 失敗（永遠不會 complete），之後的段完成也不能越過它
+        assertNull(watermark.complete(300));
+    }
+
+    @Test
+    void resumesFromStartingPosition() {
+        ChunkWatermark watermark = new ChunkWatermark(500);
+        watermark.register(600);
+
+        assertEquals(600, watermark.complete(600));
+    }
+}
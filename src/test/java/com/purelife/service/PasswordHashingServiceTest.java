@@ -0,0 +1,77 @@
+package com.purelife.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.purelife.util.PasswordUtil;
+
+/**
+ * 密碼雜湊往返：hash → matches → needsRehash（成本調低，測試跑得快）
+ */
+class PasswordHashingServiceTest {
+
+    private static final String PASSWORD = "correct-horse-battery";
+
+    private PasswordHashingService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void pbkdf2RoundTrip() {
+        service = newService("pbkdf2");
+        String stored = service.hash(PASSWORD);
+
+        assertTrue(stored.startsWith("pbkdf2:"));
+        assertFalse(PasswordUtil.isLegacyFormat(stored));
+        assertTrue(service.matches(PASSWORD, stored));
+        assertFalse(service.matches("wrong-password", stored));
+        assertFalse(service.needsRehash(stored));
+    }
+
+    @Test
+    void bcryptRoundTrip() {
+        service = newService("bcrypt");
+        String stored = service.hash(PASSWORD);
+
+        assertTrue(stored.startsWith("bcrypt:"));
+        assertFalse(PasswordUtil.isLegacyFormat(stored));
+        assertTrue(service.matches(PASSWORD, stored));
+        assertFalse(service.matches("wrong-password", stored));
+        assertFalse(service.needsRehash(stored));
+    }
+
+    @Test
+    void legacyFormatVerifiesAndNeedsRehash() {
+        service = newService("bcrypt");
+        String salt = PasswordUtil.generateSalt();
+        String stored = salt + ":" + PasswordUtil.hashPassword(PASSWORD, salt);
+
+        assertTrue(PasswordUtil.isLegacyFormat(stored));
+        assertTrue(service.matches(PASSWORD, stored));
+        assertFalse(service.matches("wrong-password", stored));
+        assertTrue(service.needsRehash(stored));
+    }
+
+    @Test
+    void otherAlgorithmNeedsRehash() {
+        PasswordHashingService pbkdf2 = newService("pbkdf2");
+        String stored = pbkdf2.hash(PASSWORD);
+        pbkdf2.shutdown();
+
+        service = newService("bcrypt");
+        assertTrue(service.matches(PASSWORD, stored));
+        assertTrue(service.needsRehash(stored));
+    }
+
+    private PasswordHashingService newService(String algorithm) {
+        return new PasswordHashingService(algorithm, 1_000, 4, 1, 8, 10_000);
+    }
+}
@@ -0,0 +1,198 @@
+package com.purelife.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.purelife.event.CatalogChangedEvent;
+import com.purelife.repository.ProductRepository;
+import com.purelife.repository.ProductRepositoryCustom.StockReservation;
+import com.purelife.repository.projection.StockLevel;
+
+/**
+ * 庫存帳本：搶購時不超賣、回寫與對帳、重新啟動後從資料庫載入
+ * products 以記憶體中的 Map 模擬（applyStockDeductions 直接扣 Map）
+ */
+class StockLedgerTest {
+
+    private static final int PRODUCT_ID = 1;
+    private static final int OTHER_PRODUCT_ID = 2;
+
+    private final Map<Integer, Integer> database = new ConcurrentHashMap<>();
+    private final AtomicBoolean failNextFlush = new AtomicBoolean();
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        database.put(PRODUCT_ID, 100);
+        database.put(OTHER_PRODUCT_ID, 1);
+
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findAllStockLevels()).thenAnswer(invocation -> {
+            List<StockLevel> levels = new ArrayList<>();
+            database.forEach((productId, stock) -> levels.add(new StockLevel(productId, stock)));
+            return levels;
+        });
+        when(productRepository.findStockLevel(anyInt())).thenAnswer(invocation -> {
+            Integer productId = invocation.getArgument(0);
+            Integer stock = database.get(productId);
+            return stock != null ? Optional.of(new StockLevel(productId, stock)) : Optional.empty();
+        });
+        doAnswer(invocation -> {
+            if (failNextFlush.getAndSet(false)) {
+                throw new IllegalStateException("模擬寫入失敗");
+            }
+            List<StockReservation> deductions = invocation.getArgument(0);
+            for (StockReservation deduction : deductions) {
+                database.merge(deduction.productId(), -deduction.quantity(), Integer::sum);
+            }
+            return null;
+        }).when(productRepository).applyStockDeductions(anyList());
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        StockLedger ledger = newLoadedLedger();
+        int threads = 8;
+        int attemptsPerThread = 50;
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicBoolean reserving = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        try {
+            // 搶購期間排程回寫同時在跑
+            Future<?> flusher = pool.submit(() -> {
+                while (reserving.get()) {
+                    ledger.flush();
+                }
+            });
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                buyers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (ledger.reserve(List.of(new StockReservation(PRODUCT_ID, 1))).isEmpty()) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get(30, TimeUnit.SECONDS);
+            }
+            reserving.set(false);
+            flusher.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        ledger.flush();
+
+        assertEquals(100, succeeded.get());
+        assertEquals(0, ledger.getAvailable(PRODUCT_ID));
+        assertEquals(0, database.get(PRODUCT_ID));
+    }
+
+    @Test
+    void reservationIsAllOrNothing() {
+        StockLedger ledger = newLoadedLedger();
+
+        List<Integer> failed = ledger.reserve(List.of(
+                new StockReservation(PRODUCT_ID, 5),
+                new StockReservation(OTHER_PRODUCT_ID, 3)));
+
+        assertEquals(List.of(OTHER_PRODUCT_ID), failed);
+        assertEquals(100, ledger.getAvailable(PRODUCT_ID));
+        assertEquals(1, ledger.getAvailable(OTHER_PRODUCT_ID));
+    }
+
+    @Test
+    void rolledBackReservationIsReleased() {
+        StockLedger ledger = newLoadedLedger();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(ledger.reserve(List.of(new StockReservation(PRODUCT_ID, 10))).isEmpty());
+            assertEquals(90, ledger.getAvailable(PRODUCT_ID));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ledger.flush();
+
+        assertEquals(100, ledger.getAvailable(PRODUCT_ID));
+        assertEquals(100, database.get(PRODUCT_ID));
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        StockLedger ledger = newLoadedLedger();
+        ledger.reserve(List.of(new StockReservation(PRODUCT_ID, 5)));
+
+        failNextFlush.set(true);
+        ledger.flush();
+        assertEquals(100, database.get(PRODUCT_ID));
+
+        ledger.flush();
+        assertEquals(95, database.get(PRODUCT_ID));
+        assertEquals(95, ledger.getAvailable(PRODUCT_ID));
+    }
+
+    @Test
+    void adminStockChangeKeepsUnflushedDeductions() {
+        StockLedger ledger = newLoadedLedger();
+        ledger.reserve(List.of(new StockReservation(PRODUCT_ID, 10)));
+
+        // 後台補貨：資料庫改成 120，帳本對帳後仍扣著還沒回寫的 10
+        database.put(PRODUCT_ID, 120);
+        ledger.onCatalogChanged(new CatalogChangedEvent(PRODUCT_ID, "維他命", "available", "維他命", "available"));
+        assertEquals(110, ledger.getAvailable(PRODUCT_ID));
+
+        ledger.flush();
+        assertEquals(110, database.get(PRODUCT_ID));
+        assertEquals(110, ledger.getAvailable(PRODUCT_ID));
+    }
+
+    @Test
+    void restartReloadsFlushedStock() {
+        StockLedger ledger = newLoadedLedger();
+        ledger.reserve(List.of(new StockReservation(PRODUCT_ID, 30)));
+        ledger.shutdown();
+        assertEquals(70, database.get(PRODUCT_ID));
+
+        StockLedger restarted = newLoadedLedger();
+        assertEquals(70, restarted.getAvailable(PRODUCT_ID));
+    }
+
+    private StockLedger newLoadedLedger() {
+        StockLedger ledger = new StockLedger(productRepository);
+        ledger.load();
+        return ledger;
+    }
+}
@@ -0,0 +1,227 @@
+package com.purelife.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.purelife.entity.Order;
+import com.purelife.entity.RenewalCheckpoint;
+import com.purelife.repository.MemberSubscriptionRepository;
+import com.purelife.repository.MemberSubscriptionRepositoryCustom.DeliveryAdvance;
+import com.purelife.repository.OrderItemRepository;
+import com.purelife.repository.OrderRepository;
+import com.purelife.repository.ProductRepository;
+import com.purelife.repository.RenewalCheckpointRepository;
+import com.purelife.repository.projection.RenewalCandidate;
+import com.purelife.service.SubscriptionRenewalService.RenewalResult;
+
+/**
+ * 定期購續訂：失敗段擋住進度、從進度接續不重複建立訂單、庫存不足不出貨
+ * 資料庫以 mock 取代（行事曆未載入，走游標掃描），段在服務自己的執行緒池中平行處理
+ */
+class SubscriptionRenewalServiceTest {
+
+    private static final LocalDate RUN_DATE = LocalDate.of(2026, 10, 1);
+    private static final int PRODUCT_ID = 10;
+    private static final int CHUNK_SIZE = 2;
+
+    /**
+     * 寫入的進度
+     */
+    private record SavedCheckpoint(Integer lastSubscriptionId, Boolean completed) {
+    }
+
+    private MemberSubscriptionRepository subscriptionRepository;
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private RenewalCheckpointRepository checkpointRepository;
+    private SubscriptionRenewalService service;
+
+    private final List<SavedCheckpoint> checkpoints = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> createdOrderNumbers = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        subscriptionRepository = mock(MemberSubscriptionRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        productRepository = mock(ProductRepository.class);
+        checkpointRepository = mock(RenewalCheckpointRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        ObjectProvider<StockLedger> stockLedgerProvider = mock(ObjectProvider.class);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        when(checkpointRepository.findById(RUN_DATE)).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            Integer lastSubscriptionId = invocation.getArgument(1);
+            Boolean completed = invocation.getArgument(2);
+            checkpoints.add(new SavedCheckpoint(lastSubscriptionId, completed));
+            return null;
+        }).when(checkpointRepository).upsert(eq(RUN_DATE), any(), anyBoolean());
+
+        // 訂閱 1 ~ 5 到期
+        List<RenewalCandidate> due = IntStream.rangeClosed(1, 5)
+                .mapToObj(SubscriptionRenewalServiceTest::candidate)
+                .collect(Collectors.toList());
+        when(subscriptionRepository.findDueForRenewal(eq(RUN_DATE), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Integer afterId = invocation.getArgument(1);
+            Integer limit = invocation.getArgument(2);
+            return due.stream()
+                    .filter(c -> c.subscriptionId() > afterId)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+        advanceSucceedsUnlessContains(-1);
+
+        when(orderRepository.findExistingOrderNumbers(anyCollection())).thenReturn(List.of());
+        doAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            orders.forEach(order -> createdOrderNumbers.add(order.getOrderNumber()));
+            return null;
+        }).when(orderRepository).batchInsert(anyList());
+        when(orderRepository.findByOrderNumberIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> orderNumbers = invocation.getArgument(0);
+            List<Order> orders = new ArrayList<>();
+            for (String orderNumber : orderNumbers) {
+                Order order = new Order();
+                order.setOrderId(orderNumber.hashCode());
+                order.setOrderNumber(orderNumber);
+                orders.add(order);
+            }
+            return orders;
+        });
+        when(productRepository.reserveStock(anyList())).thenReturn(List.of());
+
+        service = new SubscriptionRenewalService(subscriptionRepository, orderRepository, orderItemRepository,
+                productRepository, stockLedgerProvider, checkpointRepository,
+                new DeliveryCalendar(subscriptionRepository),
+                new TransactionTemplate(transactionManager), 2, CHUNK_SIZE);
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void renewsAllDueSubscriptionsAndMarksCompleted() {
+        RenewalResult result = service.runRenewals(RUN_DATE);
+
+        assertEquals(5, result.renewed());
+        assertEquals(0, result.failedChunks());
+        assertEquals(5, Set.copyOf(createdOrderNumbers).size());
+        assertTrue(checkpoints.contains(new SavedCheckpoint(5, true)));
+    }
+
+    @Test
+    void failedChunkBlocksCheckpoint() {
+        // 段 [1,2]、[3,4]、[5]：第二段失敗
+        advanceSucceedsUnlessContains(3);
+
+        RenewalResult result = service.runRenewals(RUN_DATE);
+
+        assertEquals(3, result.renewed());
+        assertEquals(1, result.failedChunks());
+        assertEquals(2, result.failed());
+        // 第三段成功也不能越過失敗的段，整輪不算完成
+        assertTrue(checkpoints.contains(new SavedCheckpoint(2, false)));
+        assertTrue(checkpoints.stream().allMatch(saved -> saved.lastSubscriptionId() <= 2));
+        assertTrue(checkpoints.stream().noneMatch(SavedCheckpoint::completed));
+    }
+
+    @Test
+    void resumesAfterCheckpointWithoutDuplicateOrders() {
+        RenewalCheckpoint checkpoint = new RenewalCheckpoint();
+        checkpoint.setRunDate(RUN_DATE);
+        checkpoint.setLastSubscriptionId(2);
+        checkpoint.setCompleted(false);
+        when(checkpointRepository.findById(RUN_DATE)).thenReturn(Optional.of(checkpoint));
+
+        // 中斷前訂閱 3 的訂單已建立（配送日後來被改回這一期）
+        String existing = orderNumber(3);
+        when(orderRepository.findExistingOrderNumbers(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> orderNumbers = invocation.getArgument(0);
+            return orderNumbers.stream().filter(existing::equals).collect(Collectors.toList());
+        });
+
+        RenewalResult result = service.runRenewals(RUN_DATE);
+
+        assertEquals(2, result.resumedAfterId());
+        verify(subscriptionRepository).findDueForRenewal(RUN_DATE, 2, CHUNK_SIZE);
+        verify(subscriptionRepository, never()).findDueForRenewal(RUN_DATE, 0, CHUNK_SIZE);
+        assertEquals(List.of(orderNumber(4), orderNumber(5)),
+                createdOrderNumbers.stream().sorted().collect(Collectors.toList()));
+        assertEquals(2, result.renewed());
+    }
+
+    @Test
+    void outOfStockSubscriptionsAreNotRenewed() {
+        when(productRepository.reserveStock(anyList())).thenReturn(List.of(PRODUCT_ID));
+
+        RenewalResult result = service.runRenewals(RUN_DATE);
+
+        assertEquals(0, result.renewed());
+        assertEquals(5, result.outOfStock());
+        assertTrue(createdOrderNumbers.isEmpty());
+        verify(orderRepository, never()).batchInsert(anyList());
+        assertFalse(checkpoints.isEmpty());
+    }
+
+    // ===== 輔助方法 =====
+
+    // 推進配送日：段內含 failingId 時整段失敗（模擬資料庫錯誤），否則全部推進成功
+    private void advanceSucceedsUnlessContains(int failingId) {
+        when(subscriptionRepository.advanceDeliveryDates(anyList())).thenAnswer(invocation -> {
+            List<DeliveryAdvance> advances = invocation.getArgument(0);
+            List<Integer> ids = advances.stream()
+                    .map(DeliveryAdvance::subscriptionId)
+                    .collect(Collectors.toList());
+            if (ids.contains(failingId)) {
+                throw new IllegalStateException("模擬寫入失敗");
+            }
+            return ids;
+        });
+    }
+
+    private static RenewalCandidate candidate(int subscriptionId) {
+        return new RenewalCandidate(subscriptionId, 100 + subscriptionId, 1, "王小明", "0912345678",
+                "台北市信義區", "credit_card", RUN_DATE, 30, null, PRODUCT_ID,
+                new BigDecimal("500"), null, "available");
+    }
+
+    private static String orderNumber(int subscriptionId) {
+        return "SUB20261001" + subscriptionId;
+    }
+}
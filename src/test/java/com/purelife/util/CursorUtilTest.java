@@ -0,0 +1,69 @@
+package com.purelife.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.purelife.controller.dto.response.CursorPage;
+import com.purelife.exception.BusinessException;
+import com.purelife.util.CursorUtil.OrderCursor;
+
+/**
+ * 游標分頁：每頁筆數上下限、多取一筆判斷下一頁、訂單游標編碼
+ */
+class CursorUtilTest {
+
+    @Test
+    void normalizesLimit() {
+        assertEquals(CursorUtil.DEFAULT_LIMIT, CursorUtil.normalizeLimit(null));
+        assertEquals(CursorUtil.DEFAULT_LIMIT, CursorUtil.normalizeLimit(0));
+        assertEquals(5, CursorUtil.normalizeLimit(5));
+        assertEquals(CursorUtil.MAX_LIMIT, CursorUtil.normalizeLimit(10_000));
+    }
+
+    @Test
+    void afterIdDefaultsToStart() {
+        assertEquals(0, CursorUtil.afterId(null));
+        assertEquals(42, CursorUtil.afterId(42));
+    }
+
+    @Test
+    void extraRowMeansMorePages() {
+        CursorPage<Integer> page = CursorUtil.toPage(List.of(1, 2, 3, 4), 3, String::valueOf);
+
+        assertEquals(List.of(1, 2, 3), page.getItems());
+        assertTrue(page.isHasMore());
+        assertEquals("3", page.getNextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<Integer> page = CursorUtil.toPage(List.of(1, 2, 3), 3, String::valueOf);
+
+        assertEquals(List.of(1, 2, 3), page.getItems());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void orderCursorRoundTrip() {
+        LocalDateTime orderTime = LocalDateTime.of(2026, 10, 1, 9, 30, 15);
+
+        String cursor = CursorUtil.encodeOrderCursor(orderTime, 1234);
+
+        assertEquals(new OrderCursor(orderTime, 1234), CursorUtil.decodeOrderCursor(cursor));
+    }
+
+    @Test
+    void invalidOrderCursorIsRejected() {
+        assertThrows(BusinessException.class, () -> CursorUtil.decodeOrderCursor("not a cursor"));
+        assertThrows(BusinessException.class, () -> CursorUtil.decodeOrderCursor("bm90LWEtZGF0ZQ"));
+    }
+}